@@ -0,0 +1,216 @@
+package xyz.plavpixel.mycelium.commands;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * one ndjson line per dispatched command, written by a background thread so command handling only pays for
+ * a queue offer. files roll over daily and when they reach the size limit:
+ * commands-2024-05-01.ndjson, commands-2024-05-01.1.ndjson, ... and the oldest are deleted after the retention.
+ * the console summary for each command is printed from the same thread
+ */
+public final class CommandAuditLog {
+    private static final int MAX_QUEUED = 100_000;
+    private static final int MAX_BATCH = 1000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final String FILE_PREFIX = "commands-";
+    private static final String FILE_SUFFIX = ".ndjson";
+
+    public enum Outcome {
+        OK, FAILED, TIMED_OUT, DENIED, COOLDOWN, RATE_LIMITED, BUSY, UNKNOWN
+    }
+
+    /**
+     * ids are strings, javascript and most json tools can't hold a discord id as a number
+     */
+    public record Entry(String time, String guild, String user, String command, Outcome outcome, double latencyMs) {
+    }
+
+    // what the command thread queues, turned into an entry on the writer thread
+    private record Pending(long timeMillis, long guildId, long userId, String command, Outcome outcome, long latencyNanos) {
+    }
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int retentionDays;
+    private final boolean console;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // writer thread only
+    private BufferedWriter writer;
+    private LocalDate fileDate;
+    private int fileIndex;
+    private long fileBytes;
+
+    public CommandAuditLog(Path directory, long maxFileBytes, int retentionDays, boolean console) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.retentionDays = retentionDays;
+        this.console = console;
+        this.writerThread = new Thread(this::run, "command-audit-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * queue a command for the log, never blocks. drops the entry if the writer has fallen far behind
+     */
+    public void record(long guildId, long userId, String command, Outcome outcome, long latencyNanos) {
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(new Pending(System.currentTimeMillis(), guildId, userId, command, outcome, latencyNanos));
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * write out what is queued and close the file
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            int written = 0;
+            Pending pending;
+            while (written < MAX_BATCH && (pending = queue.poll()) != null) {
+                queued.decrementAndGet();
+                write(new Entry(Instant.ofEpochMilli(pending.timeMillis()).toString(),
+                        pending.guildId() != 0 ? Long.toString(pending.guildId()) : null,
+                        Long.toString(pending.userId()),
+                        pending.command(),
+                        pending.outcome(),
+                        pending.latencyNanos() / 1_000_000.0));
+                written++;
+            }
+            if (written > 0) {
+                flush();
+            } else if (running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        close();
+    }
+
+    private void write(Entry entry) {
+        if (console) {
+            System.out.printf("command %s by %s in %s: %s (%.1f ms)%n",
+                    entry.command(), entry.user(), entry.guild() != null ? entry.guild() : "dm", entry.outcome(), entry.latencyMs());
+        }
+        try {
+            String line = mapper.writeValueAsString(entry) + "\n";
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+            BufferedWriter out = writerFor(lineBytes);
+            out.write(line);
+            fileBytes += lineBytes;
+        } catch (JsonProcessingException e) {
+            System.err.println("could not serialize audit entry: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("could not write command audit log: " + e.getMessage());
+            close(); // try a fresh file with the next entry
+        }
+    }
+
+    /**
+     * the file for today, rolled over first if this line would push it past the size limit. a limit of 0 or less
+     * only rolls over daily
+     */
+    private BufferedWriter writerFor(int lineBytes) throws IOException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        boolean full = maxFileBytes > 0 && fileBytes > 0 && fileBytes + lineBytes > maxFileBytes;
+        if (writer != null && (!today.equals(fileDate) || full)) {
+            close();
+            if (today.equals(fileDate)) fileIndex++;
+        }
+        if (writer == null) {
+            if (!today.equals(fileDate)) {
+                fileDate = today;
+                fileIndex = 0;
+                deleteExpired(today);
+            }
+            Files.createDirectories(directory);
+            Path file = fileFor(today, fileIndex);
+            // after a restart keep appending to today's newest file until it is full
+            while (Files.exists(fileFor(today, fileIndex + 1))) {
+                file = fileFor(today, ++fileIndex);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            fileBytes = Files.size(file);
+        }
+        return writer;
+    }
+
+    private Path fileFor(LocalDate date, int index) {
+        return directory.resolve(FILE_PREFIX + date + (index > 0 ? "." + index : "") + FILE_SUFFIX);
+    }
+
+    private void deleteExpired(LocalDate today) {
+        if (retentionDays <= 0 || !Files.isDirectory(directory)) return;
+        LocalDate oldest = today.minusDays(retentionDays);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    LocalDate date = LocalDate.parse(name.substring(FILE_PREFIX.length(), FILE_PREFIX.length() + 10));
+                    if (date.isBefore(oldest)) Files.deleteIfExists(file);
+                } catch (RuntimeException e) {
+                    // not one of ours
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("could not clean up old command audit logs: " + e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("could not flush command audit log: " + e.getMessage());
+        }
+    }
+
+    private void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("could not close command audit log: " + e.getMessage());
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,9 @@
+package xyz.plavpixel.mycelium.commands;
+
+/**
+ * the rest of the command pipeline after a middleware
+ */
+@FunctionalInterface
+public interface CommandChain {
+    void proceed(CommandContext context) throws Exception;
+}
@@ -0,0 +1,69 @@
+package xyz.plavpixel.mycelium.commands;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * a resolved command on its way through the pipeline
+ */
+public final class CommandContext {
+    private final MessageReceivedEvent event;
+    private final CommandRoute<?> route;
+    private final String args;
+    private final Guild guild; // null in direct messages
+    private final Member member;
+    private final boolean modCommand;
+    private final GuildPrefixes.Prefixes prefixes;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean timedOut;
+    private volatile CommandAuditLog.Outcome outcome = CommandAuditLog.Outcome.OK;
+
+    CommandContext(MessageReceivedEvent event, CommandRoute<?> route, String args, Guild guild, Member member, boolean modCommand,
+                   GuildPrefixes.Prefixes prefixes) {
+        this.event = event;
+        this.route = route;
+        this.args = args;
+        this.guild = guild;
+        this.member = member;
+        this.modCommand = modCommand;
+        this.prefixes = prefixes;
+    }
+
+    public MessageReceivedEvent getEvent() { return event; }
+    public String getName() { return route.name(); }
+    public String getArgs() { return args; }
+    public Guild getGuild() { return guild; }
+    public Member getMember() { return member; }
+    public long getAuthorId() { return event.getAuthor().getIdLong(); }
+    public boolean isModCommand() { return modCommand; }
+    public boolean isScriptCommand() { return route.isScript(); }
+
+    /**
+     * the prefixes of the guild the command came from, for replies that mention other commands
+     */
+    public GuildPrefixes.Prefixes getPrefixes() { return prefixes; }
+
+    /**
+     * "user:name" or "mod:name", like the script command keys
+     */
+    public String getKey() {
+        return (modCommand ? "mod:" : "user:") + route.name();
+    }
+
+    CommandRoute<?> getRoute() { return route; }
+
+    public boolean isTimedOut() { return timedOut; }
+    void markTimedOut() { timedOut = true; }
+
+    /**
+     * when the command was handed to the pipeline, so waiting for a thread counts towards its latency
+     */
+    public long getStartNanos() { return startNanos; }
+
+    /**
+     * how the command ended, set by the middleware that stopped it. OK unless one did
+     */
+    public CommandAuditLog.Outcome getOutcome() { return outcome; }
+    public void setOutcome(CommandAuditLog.Outcome outcome) { this.outcome = outcome; }
+}
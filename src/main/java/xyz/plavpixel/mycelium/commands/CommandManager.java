@@ -3,264 +3,438 @@ package xyz.plavpixel.mycelium.commands;
 import xyz.plavpixel.mycelium.audio.AudioManager;
 import xyz.plavpixel.mycelium.config.BotConfig;
 import xyz.plavpixel.mycelium.db.DatabaseManager;
+import xyz.plavpixel.mycelium.events.EventDispatcher;
+import xyz.plavpixel.mycelium.script.HandlerStats;
+import xyz.plavpixel.mycelium.script.LongCounterMap;
+import xyz.plavpixel.mycelium.script.ScriptCache;
+import xyz.plavpixel.mycelium.script.ScriptCommand;
 import xyz.plavpixel.mycelium.script.ScriptManager;
+import xyz.plavpixel.mycelium.script.ScriptMetrics;
+import xyz.plavpixel.mycelium.script.ScriptProfiler;
+import xyz.plavpixel.mycelium.script.ScriptRegistry;
+import xyz.plavpixel.mycelium.script.ScriptStore;
 import xyz.plavpixel.mycelium.util.PermissionManager;
 import xyz.plavpixel.mycelium.util.ScriptUtils;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.BiFunction;
 
 /**
- * handles prefix-based command parsing and execution
+ * handles prefix-based command parsing and execution. messages arrive already classified by the message pipeline
  */
-public class CommandManager extends ListenerAdapter {
+public class CommandManager {
     private final BotConfig config;
     private final DatabaseManager dbManager;
     private final AudioManager audioManager;
     private final ScriptManager scriptManager;
+    private final EventDispatcher eventDispatcher;
     private final PermissionManager permissionManager;
-    private final Map<String, Long> userCooldowns;
-    private final ScheduledExecutorService cooldownCleaner;
+    private final GuildPrefixes guildPrefixes;
+    private final CooldownStore cooldowns;
+    private final RateLimiter rateLimiter;
+    private final ScriptMetrics commandMetrics;
+    private final Map<Integer, Semaphore> concurrencyLimits; // command id -> permits, absent = unlimited
+    private final Map<Integer, Long> commandTimeouts; // command id -> ms, absent = the configured default
+    private final ScheduledExecutorService timeoutScheduler;
+    private final CommandPipeline pipeline;
+    private final CommandAuditLog auditLog; // null when logCommands is off
+    private final Map<String, Integer> commandIds; // canonical name -> cooldown key, stable across reloads
+    private final Map<Long, Long> guildCooldownMs;
 
     // command registries
     private final Map<String, UserCommand> userCommands;
     private final Map<String, ModCommand> modCommands;
-    private final Map<String, String> commandDescriptions;
+    private final Map<String, String> userAliases;
+    private final Map<String, String> modAliases;
+    private final Map<String, String> userDescriptions; // command name -> help text
+    private final Map<String, String> modDescriptions;
 
-    public CommandManager(DatabaseManager dbManager, AudioManager audioManager, ScriptManager scriptManager) {
+    // built-ins, script commands and aliases, rebuilt whenever the scripts reload
+    private volatile CommandIndex commandIndex;
+
+    private record CommandIndex(ScriptRegistry registry, CommandTrie<CommandRoute<UserCommand>> userCommands,
+                                CommandTrie<CommandRoute<ModCommand>> modCommands, HelpPages help) {
+    }
+
+    public CommandManager(DatabaseManager dbManager, AudioManager audioManager, ScriptManager scriptManager,
+                          EventDispatcher eventDispatcher) {
         this.config = BotConfig.getInstance();
         this.dbManager = dbManager;
         this.audioManager = audioManager;
         this.scriptManager = scriptManager;
+        this.eventDispatcher = eventDispatcher;
         this.permissionManager = new PermissionManager(dbManager);
-        this.userCooldowns = new ConcurrentHashMap<>();
-        this.cooldownCleaner = Executors.newSingleThreadScheduledExecutor();
+        this.guildPrefixes = new GuildPrefixes(dbManager);
+        this.cooldowns = new CooldownStore();
+        this.rateLimiter = new RateLimiter(config);
+        this.commandMetrics = new ScriptMetrics();
+        this.concurrencyLimits = new ConcurrentHashMap<>();
+        this.commandTimeouts = new ConcurrentHashMap<>();
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "command-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pipeline = buildPipeline();
+        this.auditLog = config.isLogCommands()
+                ? new CommandAuditLog(Paths.get(config.getLogsDirectory()), config.getAuditLogMaxFileMb() * 1024L * 1024L,
+                        config.getAuditLogRetentionDays(), config.isDebugMode())
+                : null;
+        this.commandIds = new ConcurrentHashMap<>();
+        this.guildCooldownMs = new HashMap<>();
+        config.getGuildCooldowns().forEach((guildId, seconds) -> guildCooldownMs.put(Long.parseLong(guildId), seconds * 1000L));
 
         this.userCommands = new HashMap<>();
         this.modCommands = new HashMap<>();
-        this.commandDescriptions = new HashMap<>();
+        this.userAliases = new HashMap<>();
+        this.modAliases = new HashMap<>();
+        this.userDescriptions = new HashMap<>();
+        this.modDescriptions = new HashMap<>();
 
         registerBuiltInCommands();
-        loadScriptCommandDescriptions();
-        startCooldownCleaner();
 
         System.out.println("command manager initialized with prefixes: user='" + config.getUserPrefix() + "', mod='" + config.getModPrefix() + "'");
     }
 
-    @Override
-    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
-        if (event.getAuthor().isBot() || event.isWebhookMessage()) {
-            return;
-        }
-
-        String content = event.getMessage().getContentRaw();
-        Guild guild = event.getGuild();
+    /**
+     * run a message the pipeline classified as a command, content is the raw message including the guild's prefix
+     */
+    public void handleCommand(MessageReceivedEvent event, String content, GuildPrefixes.Prefixes prefixes, boolean modCommand) {
+        Guild guild = event.isFromGuild() ? event.getGuild() : null;
         Member member = event.getMember();
 
-        // skip dms if disabled
-        if (!config.isAllowDmCommands() && event.isFromType(ChannelType.PRIVATE)) {
+        // shed spam before it costs a lookup, a script run or a reply. owners are never limited
+        long authorId = event.getAuthor().getIdLong();
+        if (!config.isUserOwner(authorId) && rateLimiter.tryAcquire(authorId, guild != null ? guild.getIdLong() : 0L) != null) {
             return;
         }
 
-        // check for user commands ($ prefix)
-        if (content.startsWith(config.getUserPrefix())) {
-            System.out.println("processing user command from " + event.getAuthor().getName() + ": " + content);
-            handleUserCommand(event, content, guild, member);
-            return;
+        // the name runs up to the first whitespace, the arguments start after the whitespace that follows it
+        int nameStart = (modCommand ? prefixes.mod() : prefixes.user()).length();
+        int nameEnd = nameStart;
+        while (nameEnd < content.length() && !isWhitespace(content.charAt(nameEnd))) nameEnd++;
+        int argsStart = nameEnd;
+        while (argsStart < content.length() && isWhitespace(content.charAt(argsStart))) argsStart++;
+        String args = argsStart < content.length() ? content.substring(argsStart) : "";
+
+        CommandIndex index = currentIndex();
+        if (modCommand) {
+            CommandRoute<ModCommand> route = index.modCommands().find(content, nameStart, nameEnd);
+            if (route == null) {
+                rejectUnknownCommand(event, guild, prefixes, "mod:" + content.substring(nameStart, nameEnd));
+                return;
+            }
+            pipeline.submit(new CommandContext(event, route, args, guild, member, true, prefixes));
+        } else {
+            CommandRoute<UserCommand> route = index.userCommands().find(content, nameStart, nameEnd);
+            if (route == null) {
+                rejectUnknownCommand(event, guild, prefixes, "user:" + content.substring(nameStart, nameEnd));
+                return;
+            }
+            pipeline.submit(new CommandContext(event, route, args, guild, member, false, prefixes));
         }
+    }
 
-        // check for mod commands (# prefix)
-        if (content.startsWith(config.getModPrefix())) {
-            System.out.println("processing mod command from " + event.getAuthor().getName() + ": " + content);
-            handleModCommand(event, content, guild, member);
+    /**
+     * same characters as the \s regex class the arguments used to be split on
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * key is the "user:name" or "mod:name" that was typed
+     */
+    private void rejectUnknownCommand(MessageReceivedEvent event, Guild guild, GuildPrefixes.Prefixes prefixes, String key) {
+        if (auditLog != null) {
+            // typed by anyone, keep what ends up in the log short
+            auditLog.record(guild != null ? guild.getIdLong() : 0L, event.getAuthor().getIdLong(),
+                    key.length() > 40 ? key.substring(0, 40) : key, CommandAuditLog.Outcome.UNKNOWN, 0L);
         }
+        String commandName = key.substring(key.indexOf(':') + 1);
+        ScriptUtils utils = new ScriptUtils();
+        EmbedBuilder embed = utils.createErrorEmbed("command not found",
+                "the command `" + commandName + "` was not found. use `" + prefixes.user() + "help` for available commands.");
+        event.getMessage().replyEmbeds(embed.build()).queue();
     }
 
-    private void handleUserCommand(MessageReceivedEvent event, String content, Guild guild, Member member) {
-        String[] parts = content.substring(config.getUserPrefix().length()).split("\\s+", 2);
-        String commandName = parts[0].toLowerCase();
-        String args = parts.length > 1 ? parts[1] : "";
+    /**
+     * error handling, metrics, the command's rate limit, cooldown, permissions, concurrency and time budget,
+     * outermost first
+     */
+    private CommandPipeline buildPipeline() {
+        return new CommandPipeline(List.of(
+                this::auditCommand,
+                this::handleErrors,
+                this::recordMetrics,
+                this::checkRateLimit,
+                this::checkCooldown,
+                this::checkPermission,
+                this::limitConcurrency,
+                this::enforceTimeout
+        ), this::runCommand);
+    }
 
-        // check cooldown
-        if (isOnCooldown(member.getId(), commandName)) {
-            System.out.println("command on cooldown: " + commandName + " for user " + member.getId());
+    private void auditCommand(CommandContext context, CommandChain next) throws Exception {
+        if (auditLog == null) {
+            next.proceed(context);
             return;
         }
+        try {
+            next.proceed(context);
+        } finally {
+            auditLog.record(context.getGuild() != null ? context.getGuild().getIdLong() : 0L, context.getAuthorId(),
+                    context.getKey(), context.getOutcome(), System.nanoTime() - context.getStartNanos());
+        }
+    }
 
-        UserCommand command = userCommands.get(commandName);
-        if (command != null) {
-            // check permissions
-            if (permissionManager.canUseUserCommand(guild.getId(), member, commandName)) {
-                System.out.println("executing built-in user command: " + commandName);
-                command.execute(event, args);
-                applyCooldown(member.getId(), commandName);
+    private void handleErrors(CommandContext context, CommandChain next) {
+        try {
+            next.proceed(context);
+        } catch (Exception e) {
+            ScriptUtils utils = new ScriptUtils();
+            EmbedBuilder embed;
+            if (context.isTimedOut()) {
+                context.setOutcome(CommandAuditLog.Outcome.TIMED_OUT);
+                System.err.println("command timed out: " + context.getKey());
+                embed = utils.createErrorEmbed("command timed out", "`" + context.getName() + "` took too long and was stopped.");
             } else {
-                System.out.println("permission denied for user command: " + commandName);
-                ScriptUtils utils = new ScriptUtils();
-                EmbedBuilder embed = utils.createErrorEmbed("permission denied", "you don't have permission to use this command.");
-                event.getMessage().replyEmbeds(embed.build()).queue();
+                context.setOutcome(CommandAuditLog.Outcome.FAILED);
+                System.err.println("error executing command " + context.getKey() + ": " + e);
+                if (config.isDebugMode()) e.printStackTrace();
+                embed = utils.createErrorEmbed("execution error", "an error occurred while executing the command: " + e.getMessage());
             }
+            context.getEvent().getMessage().replyEmbeds(embed.build()).queue();
+        }
+    }
+
+    private void recordMetrics(CommandContext context, CommandChain next) throws Exception {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            next.proceed(context);
+        } catch (Exception e) {
+            failed = true;
+            throw e;
+        } finally {
+            // cpu time can't be read for virtual threads, commands only record wall time
+            commandMetrics.forHandler(context.getKey())
+                    .record(System.nanoTime() - start, -1L, 0L, failed && !context.isTimedOut(), context.isTimedOut());
+        }
+    }
+
+    private void checkRateLimit(CommandContext context, CommandChain next) throws Exception {
+        if (config.isUserOwner(context.getAuthorId()) || rateLimiter.tryAcquireCommand(context.getRoute()) == null) {
+            next.proceed(context);
         } else {
-            // fallback to script handler
-            System.out.println("delegating to script manager for user command: " + commandName);
-            scriptManager.handleUserCommand(event, commandName, args);
+            context.setOutcome(CommandAuditLog.Outcome.RATE_LIMITED);
         }
     }
 
-    private void handleModCommand(MessageReceivedEvent event, String content, Guild guild, Member member) {
-        String[] parts = content.substring(config.getModPrefix().length()).split("\\s+", 2);
-        String commandName = parts[0].toLowerCase();
-        String args = parts.length > 1 ? parts[1] : "";
+    /**
+     * the cooldown starts in runCommand, once a built-in command actually ran. scripts pace themselves
+     */
+    private void checkCooldown(CommandContext context, CommandChain next) throws Exception {
+        if (cooldowns.isOnCooldown(context.getAuthorId(), context.getRoute().id())) {
+            context.setOutcome(CommandAuditLog.Outcome.COOLDOWN);
+            return;
+        }
+        next.proceed(context);
+    }
 
-        // check cooldown
-        if (isOnCooldown(member.getId(), commandName)) {
-            System.out.println("command on cooldown: " + commandName + " for user " + member.getId());
+    private void checkPermission(CommandContext context, CommandChain next) throws Exception {
+        if (context.isScriptCommand()) {
+            next.proceed(context);
             return;
         }
 
-        ModCommand command = modCommands.get(commandName);
-        if (command != null) {
-            // check permissions (except for reload which is owner-only)
-            if (commandName.equals("reload")) {
-                if (!config.isUserOwner(event.getAuthor().getIdLong())) {
-                    System.out.println("reload command attempted by non-owner: " + event.getAuthor().getId());
-                    ScriptUtils utils = new ScriptUtils();
-                    EmbedBuilder embed = utils.createErrorEmbed("permission denied", "only bot owners can reload scripts.");
-                    event.getMessage().replyEmbeds(embed.build()).queue();
-                    return;
-                }
-            } else if (!permissionManager.canUseModCommand(guild.getId(), member, commandName)) {
-                System.out.println("permission denied for mod command: " + commandName);
-                ScriptUtils utils = new ScriptUtils();
-                EmbedBuilder embed = utils.createErrorEmbed("permission denied", "you don't have permission to use this command.");
-                event.getMessage().replyEmbeds(embed.build()).queue();
-                return;
+        String commandName = context.getName();
+        MessageReceivedEvent event = context.getEvent();
+        String denied = null;
+        if (!context.isModCommand()) {
+            if (!permissionManager.canUseUserCommand(context.getGuild().getId(), context.getMember(), commandName)) {
+                denied = "you don't have permission to use this command.";
+            }
+        } else if (commandName.equals("reload")) {
+            // reload is owner-only
+            if (!config.isUserOwner(context.getAuthorId())) {
+                denied = "only bot owners can reload scripts.";
             }
+        } else if (!permissionManager.canUseModCommand(context.getGuild().getId(), context.getMember(), commandName)) {
+            denied = "you don't have permission to use this command.";
+        }
 
-            System.out.println("executing built-in mod command: " + commandName);
-            command.execute(event, args);
-            applyCooldown(member.getId(), commandName);
-        } else {
-            // fallback to script handler
-            System.out.println("delegating to script manager for mod command: " + commandName);
-            scriptManager.handleModCommand(event, commandName, args);
+        if (denied != null) {
+            context.setOutcome(CommandAuditLog.Outcome.DENIED);
+            ScriptUtils utils = new ScriptUtils();
+            event.getMessage().replyEmbeds(utils.createErrorEmbed("permission denied", denied).build()).queue();
+            return;
         }
+        next.proceed(context);
     }
 
-    private boolean isOnCooldown(String userId, String commandName) {
-        String key = userId + ":" + commandName;
-        Long lastUsed = userCooldowns.get(key);
-        if (lastUsed == null) return false;
+    private void limitConcurrency(CommandContext context, CommandChain next) throws Exception {
+        Semaphore permits = concurrencyLimits.get(context.getRoute().id());
+        if (permits == null) {
+            next.proceed(context);
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            context.setOutcome(CommandAuditLog.Outcome.BUSY);
+            ScriptUtils utils = new ScriptUtils();
+            EmbedBuilder embed = utils.createErrorEmbed("command busy",
+                    "`" + context.getName() + "` is already running as often as it may, try again in a moment.");
+            context.getEvent().getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+        try {
+            next.proceed(context);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * interrupts the command's thread once its budget is spent. script commands keep running under their own
+     * watchdog, only the wait for them stops
+     */
+    private void enforceTimeout(CommandContext context, CommandChain next) throws Exception {
+        long timeoutMs = commandTimeouts.getOrDefault(context.getRoute().id(), config.getCommandTimeoutMs());
+        if (timeoutMs <= 0) {
+            next.proceed(context);
+            return;
+        }
 
-        long cooldownMs = config.getCommandCooldownSeconds() * 1000L;
-        return System.currentTimeMillis() - lastUsed < cooldownMs;
+        Thread thread = Thread.currentThread();
+        ScheduledFuture<?> timer = timeoutScheduler.schedule(() -> {
+            context.markTimedOut();
+            thread.interrupt();
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            next.proceed(context);
+        } finally {
+            timer.cancel(false);
+        }
+        if (context.isTimedOut()) {
+            Thread.interrupted(); // the timer fired as the command finished, don't leave the flag set
+        }
     }
 
-    private void applyCooldown(String userId, String commandName) {
-        String key = userId + ":" + commandName;
-        userCooldowns.put(key, System.currentTimeMillis());
+    private void runCommand(CommandContext context) throws Exception {
+        MessageReceivedEvent event = context.getEvent();
+        CommandRoute<?> route = context.getRoute();
+        if (route.builtIn() instanceof UserCommand command) {
+            command.execute(event, context.getArgs());
+            cooldowns.apply(context.getAuthorId(), route.id(), cooldownMs(route, context.getGuild()));
+        } else if (route.builtIn() instanceof ModCommand command) {
+            command.execute(event, context.getArgs());
+            cooldowns.apply(context.getAuthorId(), route.id(), cooldownMs(route, context.getGuild()));
+        } else if (context.isModCommand()) {
+            scriptManager.handleModCommand(event, context.getName(), context.getArgs(), context.getPrefixes().user()).get();
+        } else {
+            scriptManager.handleUserCommand(event, context.getName(), context.getArgs(), context.getPrefixes().user()).get();
+        }
     }
 
-    private void startCooldownCleaner() {
-        cooldownCleaner.scheduleAtFixedRate(() -> {
-            long now = System.currentTimeMillis();
-            long cooldownMs = config.getCommandCooldownSeconds() * 1000L;
+    private CommandIndex currentIndex() {
+        CommandIndex index = commandIndex;
+        if (index != null && index.registry() == scriptManager.getRegistry()) {
+            return index;
+        }
+        return rebuildIndex();
+    }
 
-            userCooldowns.entrySet().removeIf(entry ->
-                    now - entry.getValue() > cooldownMs
-            );
-        }, 1, 1, TimeUnit.MINUTES);
+    private synchronized CommandIndex rebuildIndex() {
+        ScriptRegistry registry = scriptManager.getRegistry();
+        CommandIndex index = commandIndex;
+        if (index == null || index.registry() != registry) {
+            index = new CommandIndex(registry,
+                    buildTrie("user", userCommands, userAliases, registry, this::route),
+                    buildTrie("mod", modCommands, modAliases, registry, this::route),
+                    buildHelp(registry));
+            commandIndex = index;
+            System.out.println("command index built: " + index.userCommands().size() + " user and "
+                    + index.modCommands().size() + " mod names");
+        }
+        return index;
     }
 
     /**
-     * load command descriptions from script metadata
+     * built-ins win over script commands of the same name, and aliases never shadow a command
      */
-    private void loadScriptCommandDescriptions() {
-        File scriptsDir = new File(config.getScriptsDirectory());
-        File[] files = scriptsDir.listFiles((dir, name) -> name.endsWith(".js"));
-
-        if (files == null) return;
+    static <C> CommandTrie<CommandRoute<C>> buildTrie(String prefixType, Map<String, C> builtIns, Map<String, String> aliases,
+                                                      ScriptRegistry registry, BiFunction<String, C, CommandRoute<C>> routes) {
+        CommandTrie<CommandRoute<C>> trie = new CommandTrie<>();
+        builtIns.forEach((name, command) -> trie.putIfAbsent(name, routes.apply(name, command)));
+        for (ScriptCommand command : registry.getCommands()) {
+            if (!command.prefix().equals(prefixType)) continue;
+            CommandRoute<C> route = trie.putIfAbsent(command.name(), routes.apply(command.name(), null));
+            if (!route.isScript()) {
+                System.err.println("script command " + prefixType + ":" + command.name() + " in " + command.scriptName()
+                        + " is hidden by the built-in command");
+            }
+        }
 
-        Pattern pattern = Pattern.compile("/\\*\\*([\\s\\S]*?)\\*/");
+        aliases.forEach((alias, target) -> addAlias(trie, prefixType, alias, trie.find(target)));
+        for (ScriptCommand command : registry.getCommands()) {
+            if (!command.prefix().equals(prefixType)) continue;
+            for (String alias : command.aliases()) {
+                addAlias(trie, prefixType, alias, trie.find(command.name()));
+            }
+        }
+        return trie;
+    }
 
-        for (File file : files) {
-            try {
-                String content = Files.readString(file.toPath());
-                Matcher matcher = pattern.matcher(content);
+    private static <C> void addAlias(CommandTrie<CommandRoute<C>> trie, String prefixType, String alias, CommandRoute<C> route) {
+        if (route == null) return;
+        CommandRoute<C> holder = trie.putIfAbsent(alias, route);
+        if (holder != route) {
+            System.err.println("alias " + prefixType + ":" + alias + " for " + route.name() + " is already taken by " + holder.name());
+        }
+    }
 
-                if (matcher.find()) {
-                    String metadata = matcher.group(1).trim();
-                    parseCommandDescriptions(metadata);
-                }
-            } catch (IOException e) {
-                System.err.println("failed to read script file for descriptions: " + file.getName());
-            }
+    /**
+     * user and mod commands of the same name share an id, and with it their cooldown
+     */
+    private <C> CommandRoute<C> route(String name, C builtIn) {
+        String key = name.toLowerCase();
+        int id = commandIds.computeIfAbsent(key, k -> commandIds.size());
+        Integer seconds = config.getCommandCooldowns().get(key);
+        Integer maxConcurrency = config.getCommandConcurrencyLimits().get(key);
+        if (maxConcurrency != null && maxConcurrency > 0) concurrencyLimits.putIfAbsent(id, new Semaphore(maxConcurrency));
+        Long timeoutMs = config.getCommandTimeouts().get(key);
+        if (timeoutMs == null && builtIn instanceof ModCommand && key.equals("reload")) {
+            // loading and warming up every script can outlast any sensible default, interrupting it halfway helps nobody
+            timeoutMs = 0L;
         }
+        if (timeoutMs != null) commandTimeouts.put(id, timeoutMs);
+        return new CommandRoute<>(name, id, builtIn, seconds != null ? seconds * 1000L : -1, rateLimiter.commandInterval(key));
     }
 
-    private void parseCommandDescriptions(String metadata) {
-        try {
-            // simple json array parsing
-            metadata = metadata.trim();
-            if (!metadata.startsWith("[") || !metadata.endsWith("]")) return;
-
-            // basic json parsing - for simplicity, we'll use string operations
-            String[] commands = metadata.substring(1, metadata.length() - 1).split("\\},\\s*\\{");
-
-            for (String command : commands) {
-                command = command.trim();
-                if (command.startsWith("{")) command = command.substring(1);
-                if (command.endsWith("}")) command = command.substring(0, command.length() - 1);
-
-                // parse key-value pairs
-                String[] pairs = command.split(",");
-                String name = null;
-                String prefix = null;
-                String description = null;
-
-                for (String pair : pairs) {
-                    String[] keyValue = pair.split(":", 2);
-                    if (keyValue.length != 2) continue;
-
-                    String key = keyValue[0].trim().replace("\"", "").replace("'", "");
-                    String value = keyValue[1].trim().replace("\"", "").replace("'", "");
-
-                    switch (key) {
-                        case "name":
-                            name = value;
-                            break;
-                        case "prefix":
-                            prefix = value;
-                            break;
-                        case "description":
-                            description = value;
-                            break;
-                    }
-                }
-
-                if (name != null && prefix != null && description != null) {
-                    String fullCommand = (prefix.equals("user") ? config.getUserPrefix() : config.getModPrefix()) + name;
-                    commandDescriptions.put(fullCommand, description);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("error parsing command descriptions: " + e.getMessage());
+    /**
+     * the command's own cooldown, else the guild's, else the global one
+     */
+    private long cooldownMs(CommandRoute<?> route, Guild guild) {
+        if (route.cooldownMs() >= 0) return route.cooldownMs();
+        if (guild != null && !guildCooldownMs.isEmpty()) {
+            Long guildMs = guildCooldownMs.get(guild.getIdLong());
+            if (guildMs != null) return guildMs;
         }
+        return config.getCommandCooldownSeconds() * 1000L;
     }
 
     /**
@@ -281,20 +455,38 @@ public class CommandManager extends ListenerAdapter {
         modCommands.put("permissions", this::handlePermissions);
         modCommands.put("clean", this::handleClean);
         modCommands.put("reload", this::handleReload);
+        modCommands.put("scriptstats", this::handleScriptStats);
+        modCommands.put("scriptcaches", this::handleScriptCaches);
+        modCommands.put("profile", this::handleProfile);
+        modCommands.put("eventstats", this::handleEventStats);
+        modCommands.put("ratelimits", this::handleRateLimits);
+        modCommands.put("commandstats", this::handleCommandStats);
+
+        // aliases
+        userAliases.put("np", "nowplaying");
+        userAliases.put("q", "queue");
+        userAliases.put("vol", "volume");
+        modAliases.put("purge", "clean");
 
         // add built-in command descriptions
-        commandDescriptions.put(config.getUserPrefix() + "ping", "checks bot latency and response time");
-        commandDescriptions.put(config.getUserPrefix() + "help", "shows this help message with all available commands");
-        commandDescriptions.put(config.getUserPrefix() + "play", "plays audio from youtube or other sources");
-        commandDescriptions.put(config.getUserPrefix() + "skip", "skips the current track");
-        commandDescriptions.put(config.getUserPrefix() + "queue", "shows the current playback queue");
-        commandDescriptions.put(config.getUserPrefix() + "volume", "adjusts the playback volume");
-        commandDescriptions.put(config.getUserPrefix() + "nowplaying", "shows the currently playing track");
-
-        commandDescriptions.put(config.getModPrefix() + "config", "server configuration management");
-        commandDescriptions.put(config.getModPrefix() + "permissions", "manage command permissions");
-        commandDescriptions.put(config.getModPrefix() + "clean", "deletes a number of messages");
-        commandDescriptions.put(config.getModPrefix() + "reload", "reloads all scripts (owner only)");
+        userDescriptions.put("ping", "checks bot latency and response time");
+        userDescriptions.put("help", "shows this help message with all available commands");
+        userDescriptions.put("play", "plays audio from youtube or other sources");
+        userDescriptions.put("skip", "skips the current track");
+        userDescriptions.put("queue", "shows the current playback queue");
+        userDescriptions.put("volume", "adjusts the playback volume");
+        userDescriptions.put("nowplaying", "shows the currently playing track");
+
+        modDescriptions.put("config", "server configuration management");
+        modDescriptions.put("permissions", "manage command permissions");
+        modDescriptions.put("clean", "deletes a number of messages");
+        modDescriptions.put("reload", "reloads all scripts (owner only)");
+        modDescriptions.put("scriptstats", "shows script handler latencies and timeouts");
+        modDescriptions.put("scriptcaches", "shows script cache hit rates and evictions");
+        modDescriptions.put("eventstats", "shows event queue depths and dropped events");
+        modDescriptions.put("commandstats", "shows command latencies, errors and timeouts");
+        modDescriptions.put("ratelimits", "shows rate limits and how many commands they dropped");
+        modDescriptions.put("profile", "top script handlers by time, `sample <seconds>` finds hot functions");
     }
 
     // user command implementations
@@ -316,69 +508,36 @@ public class CommandManager extends ListenerAdapter {
     }
 
     private void handleHelp(MessageReceivedEvent event, String args) {
-        ScriptUtils utils = new ScriptUtils();
-        EmbedBuilder embed = utils.createEmbed("mycelium bot help",
-                "here are all available commands. use `" + config.getUserPrefix() + "command` or `" + config.getModPrefix() + "command`",
-                utils.INFO_COLOR);
-
-        // group commands by prefix
-        Map<String, List<String>> userCommands = new HashMap<>();
-        Map<String, List<String>> modCommands = new HashMap<>();
-
-        for (Map.Entry<String, String> entry : commandDescriptions.entrySet()) {
-            String command = entry.getKey();
-            String description = entry.getValue();
-
-            if (command.startsWith(config.getUserPrefix())) {
-                String cmdName = command.substring(config.getUserPrefix().length());
-                userCommands.computeIfAbsent(cmdName, k -> new ArrayList<>()).add(description);
-            } else if (command.startsWith(config.getModPrefix())) {
-                String cmdName = command.substring(config.getModPrefix().length());
-                modCommands.computeIfAbsent(cmdName, k -> new ArrayList<>()).add(description);
-            }
-        }
-
-        // build user commands field
-        if (!userCommands.isEmpty()) {
-            StringBuilder userCommandsText = new StringBuilder();
-            userCommands.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        userCommandsText.append("`").append(config.getUserPrefix()).append(entry.getKey()).append("` - ");
-                        // if there are multiple descriptions, use the first one
-                        userCommandsText.append(entry.getValue().get(0)).append("\n");
-                    });
-            embed.addField("user commands", userCommandsText.toString(), false);
-        }
-
-        // build mod commands field
-        if (!modCommands.isEmpty()) {
-            StringBuilder modCommandsText = new StringBuilder();
-            modCommands.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        modCommandsText.append("`").append(config.getModPrefix()).append(entry.getKey()).append("` - ");
-                        // if there are multiple descriptions, use the first one
-                        modCommandsText.append(entry.getValue().get(0)).append("\n");
-                    });
-            embed.addField("moderation commands", modCommandsText.toString(), false);
-        }
+        List<MessageEmbed> pages = currentIndex().help().get(prefixesFor(event));
+        int page = parseIntOrDefault(args.trim(), 1, 1, pages.size());
+        event.getMessage().replyEmbeds(pages.get(page - 1)).queue();
+    }
 
-        embed.addField("need more help?",
-                "• use `" + config.getUserPrefix() + "command` to execute a command\n" +
-                        "• use `" + config.getModPrefix() + "command` for moderation\n" +
-                        "• check script files for command-specific usage",
-                false);
+    private GuildPrefixes.Prefixes prefixesFor(MessageReceivedEvent event) {
+        return guildPrefixes.get(event.isFromGuild() ? event.getGuild().getIdLong() : 0L);
+    }
 
-        utils.addMessageFooter(embed, event);
-        event.getMessage().replyEmbeds(embed.build()).queue();
+    /**
+     * descriptions by command name, built-ins first like in the command index
+     */
+    private HelpPages buildHelp(ScriptRegistry registry) {
+        SortedMap<String, String> userHelp = new TreeMap<>();
+        SortedMap<String, String> modHelp = new TreeMap<>();
+        userHelp.putAll(userDescriptions);
+        modHelp.putAll(modDescriptions);
+        for (ScriptCommand scriptCommand : registry.getCommands()) {
+            if (scriptCommand.description() == null) continue;
+            SortedMap<String, String> help = scriptCommand.prefix().equals("user") ? userHelp : modHelp;
+            help.putIfAbsent(scriptCommand.name(), scriptCommand.description());
+        }
+        return new HelpPages(userHelp, modHelp);
     }
 
     private void handlePlay(MessageReceivedEvent event, String args) {
         ScriptUtils utils = new ScriptUtils();
 
         if (args.isEmpty()) {
-            EmbedBuilder embed = utils.createErrorEmbed("usage", "`" + config.getUserPrefix() + "play <url or search query>`");
+            EmbedBuilder embed = utils.createErrorEmbed("usage", "`" + prefixesFor(event).user() + "play <url or search query>`");
             event.getMessage().replyEmbeds(embed.build()).queue();
             return;
         }
@@ -418,9 +577,58 @@ public class CommandManager extends ListenerAdapter {
 
     // mod command implementations
     private void handleConfig(MessageReceivedEvent event, String args) {
+        String[] parts = args.trim().split("\\s+");
+        if (parts[0].equalsIgnoreCase("prefix")) {
+            handlePrefixConfig(event, parts);
+            return;
+        }
         permissionManager.handleConfigCommand(event, args);
     }
 
+    /**
+     * #config prefix [user|mod] [prefix|reset]
+     */
+    private void handlePrefixConfig(MessageReceivedEvent event, String[] parts) {
+        ScriptUtils utils = new ScriptUtils();
+        long guildId = event.getGuild().getIdLong();
+        GuildPrefixes.Prefixes current = guildPrefixes.get(guildId);
+
+        if (parts.length < 3 || !(parts[1].equalsIgnoreCase("user") || parts[1].equalsIgnoreCase("mod"))) {
+            EmbedBuilder embed = utils.createInfoEmbed("command prefixes",
+                    "user commands: `" + current.user() + "`\nmod commands: `" + current.mod() + "`\n\n" +
+                            "change with `" + current.mod() + "config prefix <user|mod> <prefix|reset>`");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        boolean mod = parts[1].equalsIgnoreCase("mod");
+        String prefix = parts[2].equalsIgnoreCase("reset") ? null : parts[2];
+        if (prefix != null) {
+            String problem = GuildPrefixes.validate(prefix);
+            String other = mod ? current.user() : current.mod();
+            if (problem == null && (prefix.startsWith(other) || other.startsWith(prefix))) {
+                problem = "user and mod prefixes can't be the same or start with one another.";
+            }
+            if (problem != null) {
+                event.getMessage().replyEmbeds(utils.createErrorEmbed("invalid prefix", problem).build()).queue();
+                return;
+            }
+        }
+
+        guildPrefixes.set(guildId, mod, prefix).whenComplete((ignored, error) -> {
+            if (error != null) {
+                EmbedBuilder embed = utils.createErrorEmbed("prefix not changed", "the prefix could not be saved, try again later.");
+                event.getMessage().replyEmbeds(embed.build()).queue();
+                return;
+            }
+            GuildPrefixes.Prefixes updated = guildPrefixes.get(guildId);
+            EmbedBuilder embed = utils.createSuccessEmbed("prefix updated",
+                    (mod ? "mod" : "user") + " commands now use `" + (mod ? updated.mod() : updated.user()) + "`");
+            utils.addMessageFooter(embed, event);
+            event.getMessage().replyEmbeds(embed.build()).queue();
+        });
+    }
+
     private void handlePermissions(MessageReceivedEvent event, String args) {
         permissionManager.handlePermissionsCommand(event, args);
     }
@@ -453,7 +661,7 @@ public class CommandManager extends ListenerAdapter {
                         );
                     });
         } catch (NumberFormatException e) {
-            EmbedBuilder embed = utils.createErrorEmbed("usage", "`" + config.getModPrefix() + "clean <number of messages>`");
+            EmbedBuilder embed = utils.createErrorEmbed("usage", "`" + prefixesFor(event).mod() + "clean <number of messages>`");
             event.getMessage().replyEmbeds(embed.build()).queue();
         }
     }
@@ -462,8 +670,14 @@ public class CommandManager extends ListenerAdapter {
         ScriptUtils utils = new ScriptUtils();
 
         // owner check is now done in handleModCommand
-        scriptManager.loadScripts();
-        loadScriptCommandDescriptions(); // reload descriptions too
+        // descriptions come from the script registry, nothing else to refresh
+        if (!scriptManager.loadScripts()) {
+            EmbedBuilder embed = utils.createErrorEmbed("reload failed",
+                    "not every script context finished loading, check the console. some commands may not work until the next reload.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            System.err.println("script reload by " + event.getAuthor().getName() + " did not complete");
+            return;
+        }
 
         EmbedBuilder embed = utils.createSuccessEmbed("reload complete", "all scripts have been reloaded successfully.");
         utils.addMessageFooter(embed, event);
@@ -472,15 +686,247 @@ public class CommandManager extends ListenerAdapter {
         System.out.println("scripts reloaded by owner: " + event.getAuthor().getName());
     }
 
-    public void registerUserCommand(String name, UserCommand command) {
+    private void handleScriptStats(MessageReceivedEvent event, String args) {
+        replyHandlerStats(event, "script stats", "no script handlers have run yet.", scriptManager.getMetrics().snapshot());
+    }
+
+    private void handleCommandStats(MessageReceivedEvent event, String args) {
+        replyHandlerStats(event, "command stats", "no commands have run yet.", commandMetrics.snapshot());
+    }
+
+    private void replyHandlerStats(MessageReceivedEvent event, String title, String emptyText, List<HandlerStats> stats) {
+        ScriptUtils utils = new ScriptUtils();
+        if (stats.isEmpty()) {
+            EmbedBuilder embed = utils.createInfoEmbed(title, emptyText);
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        // slowest first by p99
+        stats.sort(Comparator.comparingLong((HandlerStats s) -> s.percentileNanos(0.99)).reversed());
+        StringBuilder text = new StringBuilder();
+        for (HandlerStats handler : stats.subList(0, Math.min(15, stats.size()))) {
+            text.append(String.format("`%s` p50 %.1fms · p99 %.1fms · %d runs",
+                    handler.getHandlerName(),
+                    handler.percentileNanos(0.5) / 1_000_000.0,
+                    handler.percentileNanos(0.99) / 1_000_000.0,
+                    handler.getInvocations()));
+            if (handler.getErrors() > 0) text.append(" · ").append(handler.getErrors()).append(" errors");
+            if (handler.getTimeouts() > 0) text.append(" · ").append(handler.getTimeouts()).append(" timeouts");
+            text.append("\n");
+        }
+
+        EmbedBuilder embed = utils.createInfoEmbed(title, text.toString());
+        utils.addMessageFooter(embed, event);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    private void handleScriptCaches(MessageReceivedEvent event, String args) {
+        ScriptUtils utils = new ScriptUtils();
+        ScriptStore store = scriptManager.getStore();
+        List<ScriptCache> caches = store.getCaches();
+        List<LongCounterMap> longMaps = store.getLongMaps();
+
+        if (caches.isEmpty() && longMaps.isEmpty() && store.getCounters().isEmpty()) {
+            EmbedBuilder embed = utils.createInfoEmbed("script caches", "no script has created a cache yet.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        caches.sort(Comparator.comparing(ScriptCache::getName));
+        for (ScriptCache cache : caches.subList(0, Math.min(15, caches.size()))) {
+            CacheStats stats = cache.stats();
+            text.append(String.format("`%s` %d entries · %.1f%% hits (%d/%d) · %d evictions%n",
+                    cache.getName(),
+                    cache.size(),
+                    stats.hitRate() * 100,
+                    stats.hitCount(),
+                    stats.requestCount(),
+                    stats.evictionCount()));
+        }
+        longMaps.sort(Comparator.comparing(LongCounterMap::getName));
+        for (LongCounterMap map : longMaps.subList(0, Math.min(15, longMaps.size()))) {
+            text.append(String.format("`%s` %d keys%n", map.getName(), map.size()));
+        }
+        if (!store.getCounters().isEmpty()) {
+            text.append(store.getCounters().size()).append(" counters\n");
+        }
+
+        EmbedBuilder embed = utils.createInfoEmbed("script caches", text.toString());
+        utils.addMessageFooter(embed, event);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    private void handleEventStats(MessageReceivedEvent event, String args) {
+        ScriptUtils utils = new ScriptUtils();
+        List<EventDispatcher.EventLane> lanes = eventDispatcher.getLanes();
+
+        if (lanes.isEmpty()) {
+            EmbedBuilder embed = utils.createInfoEmbed("event stats", "no events have been dispatched to scripts yet.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        lanes.sort(Comparator.comparing(EventDispatcher.EventLane::getEventType));
+        StringBuilder text = new StringBuilder();
+        for (EventDispatcher.EventLane lane : lanes) {
+            text.append(String.format("`%s` %d/%d queued · %d dispatched · %d dropped",
+                    lane.getEventType(),
+                    lane.getQueueDepth(),
+                    lane.getCapacity(),
+                    lane.getDispatched(),
+                    lane.getDropped()));
+            if (lane.getCoalesced() > 0) text.append(" · ").append(lane.getCoalesced()).append(" coalesced");
+            text.append(" · ").append(lane.getPolicy().name().toLowerCase()).append("\n");
+        }
+
+        EmbedBuilder embed = utils.createInfoEmbed("event stats", text.toString());
+        utils.addMessageFooter(embed, event);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    private void handleRateLimits(MessageReceivedEvent event, String args) {
+        ScriptUtils utils = new ScriptUtils();
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("`global` %s · %d dropped%n",
+                describeLimit(config.getGlobalRateLimitPerMinute()), rateLimiter.getRejected(RateLimiter.Scope.GLOBAL)));
+        text.append(String.format("`guild` %s · %d dropped%n",
+                describeLimit(config.getGuildRateLimitPerMinute()), rateLimiter.getRejected(RateLimiter.Scope.GUILD)));
+        text.append(String.format("`user` %s · %d dropped%n",
+                describeLimit(config.isEnablePerUserRateLimit() ? config.getPerUserRateLimitPerMinute() : 0),
+                rateLimiter.getRejected(RateLimiter.Scope.USER)));
+        text.append(String.format("`command` %d limited · %d dropped%n",
+                config.getCommandRateLimits().size(), rateLimiter.getRejected(RateLimiter.Scope.COMMAND)));
+
+        EmbedBuilder embed = utils.createInfoEmbed("rate limits", text.toString());
+        utils.addMessageFooter(embed, event);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    private static String describeLimit(int perMinute) {
+        return perMinute > 0 ? perMinute + "/min" : "off";
+    }
+
+    private void handleProfile(MessageReceivedEvent event, String args) {
+        ScriptUtils utils = new ScriptUtils();
+        String[] parts = args.trim().split("\\s+");
+
+        if (parts[0].equalsIgnoreCase("sample")) {
+            handleProfileSample(event, parts.length > 1 ? parts[1] : "");
+            return;
+        }
+
+        int limit = parseIntOrDefault(parts[0], 10, 1, 25);
+        List<HandlerStats> stats = scriptManager.getMetrics().snapshot();
+        if (stats.isEmpty()) {
+            EmbedBuilder embed = utils.createInfoEmbed("script profile", "no script handlers have run yet.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        StringBuilder text = new StringBuilder("**by total time**\n");
+        stats.sort(Comparator.comparingLong(HandlerStats::getTotalNanos).reversed());
+        for (HandlerStats handler : stats.subList(0, Math.min(limit, stats.size()))) {
+            long runs = Math.max(1, handler.getInvocations());
+            text.append(String.format("`%s` %.0fms total · cpu %.0fms · queued avg %.1fms · %d runs",
+                    handler.getHandlerName(),
+                    handler.getTotalNanos() / 1_000_000.0,
+                    handler.getCpuNanos() / 1_000_000.0,
+                    handler.getQueueNanos() / 1_000_000.0 / runs,
+                    handler.getInvocations()));
+            if (handler.getErrors() > 0) text.append(" · ").append(handler.getErrors()).append(" errors");
+            text.append("\n");
+        }
+
+        text.append("\n**by p99 latency**\n");
+        stats.sort(Comparator.comparingLong((HandlerStats s) -> s.percentileNanos(0.99)).reversed());
+        for (HandlerStats handler : stats.subList(0, Math.min(limit, stats.size()))) {
+            text.append(String.format("`%s` p99 %.1fms · p50 %.1fms%n",
+                    handler.getHandlerName(),
+                    handler.percentileNanos(0.99) / 1_000_000.0,
+                    handler.percentileNanos(0.5) / 1_000_000.0));
+        }
+
+        EmbedBuilder embed = utils.createInfoEmbed("script profile", text.toString());
+        utils.addMessageFooter(embed, event);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    private void handleProfileSample(MessageReceivedEvent event, String secondsArg) {
+        ScriptUtils utils = new ScriptUtils();
+        int seconds = parseIntOrDefault(secondsArg, 10, 1, 120);
+
+        CompletableFuture<ScriptProfiler.Profile> sample = scriptManager.getProfiler().sample(seconds, 15);
+        sample.whenComplete((profile, error) -> {
+            if (error != null) {
+                EmbedBuilder embed = utils.createErrorEmbed("script profile", "could not sample scripts: " + error.getMessage());
+                event.getMessage().replyEmbeds(embed.build()).queue();
+                return;
+            }
+            if (profile.samples() == 0) {
+                EmbedBuilder embed = utils.createInfoEmbed("script profile", "no script code ran while sampling.");
+                event.getMessage().replyEmbeds(embed.build()).queue();
+                return;
+            }
+
+            StringBuilder text = new StringBuilder();
+            for (ScriptProfiler.HotFunction function : profile.functions()) {
+                text.append(String.format("`%s` %s · self %.1f%% · total %.1f%%%n",
+                        function.name(),
+                        function.location(),
+                        function.selfSamples() * 100.0 / profile.samples(),
+                        function.totalSamples() * 100.0 / profile.samples()));
+            }
+
+            EmbedBuilder embed = utils.createInfoEmbed("script profile (" + profile.samples() + " samples)", text.toString());
+            utils.addMessageFooter(embed, event);
+            event.getMessage().replyEmbeds(embed.build()).queue();
+        });
+
+        if (!sample.isDone()) {
+            EmbedBuilder embed = utils.createInfoEmbed("script profile", "sampling scripts for " + seconds + " seconds...");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+        }
+    }
+
+    private static int parseIntOrDefault(String value, int defaultValue, int min, int max) {
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * stop taking commands and write out the audit log
+     */
+    public void shutdown() {
+        pipeline.shutdown();
+        if (auditLog != null) auditLog.shutdown();
+    }
+
+    public GuildPrefixes getGuildPrefixes() {
+        return guildPrefixes;
+    }
+
+    public synchronized void registerUserCommand(String name, UserCommand command) {
         userCommands.put(name.toLowerCase(), command);
+        commandIndex = null;
     }
 
-    public void registerModCommand(String name, ModCommand command) {
+    public synchronized void registerModCommand(String name, ModCommand command) {
         modCommands.put(name.toLowerCase(), command);
+        commandIndex = null;
     }
 
-    public void shutdown() {
-        cooldownCleaner.shutdown();
+    public synchronized void registerUserAlias(String alias, String commandName) {
+        userAliases.put(alias.toLowerCase(), commandName);
+        commandIndex = null;
+    }
+
+    public synchronized void registerModAlias(String alias, String commandName) {
+        modAliases.put(alias.toLowerCase(), commandName);
+        commandIndex = null;
     }
 }
@@ -0,0 +1,9 @@
+package xyz.plavpixel.mycelium.commands;
+
+/**
+ * one stage of the command pipeline. call next.proceed to continue, return without it to stop the command
+ */
+@FunctionalInterface
+public interface CommandMiddleware {
+    void handle(CommandContext context, CommandChain next) throws Exception;
+}
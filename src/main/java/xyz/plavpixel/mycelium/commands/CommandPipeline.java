@@ -0,0 +1,39 @@
+package xyz.plavpixel.mycelium.commands;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * runs resolved commands on virtual threads through an ordered middleware chain, so nothing a command does
+ * holds up the jda event thread. the first middleware is the outermost
+ */
+public final class CommandPipeline {
+    private final CommandChain chain;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("command-", 0).factory());
+
+    public CommandPipeline(List<CommandMiddleware> middleware, CommandChain command) {
+        CommandChain chain = command;
+        for (int i = middleware.size() - 1; i >= 0; i--) {
+            CommandMiddleware stage = middleware.get(i);
+            CommandChain next = chain;
+            chain = context -> stage.handle(context, next);
+        }
+        this.chain = chain;
+    }
+
+    public void submit(CommandContext context) {
+        executor.execute(() -> {
+            try {
+                chain.proceed(context);
+            } catch (Exception e) {
+                // the error handling middleware normally catches everything before it gets here
+                System.err.println("command " + context.getKey() + " failed: " + e);
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
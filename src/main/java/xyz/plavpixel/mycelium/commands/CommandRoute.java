@@ -0,0 +1,14 @@
+package xyz.plavpixel.mycelium.commands;
+
+/**
+ * where a command name leads - a built-in command, or the script handlers registered under the canonical name
+ * when builtIn is null. aliases share the route of the command they point to.
+ * id keys the command's cooldowns, cooldownMs is its own cooldown or -1 to use the guild or global one,
+ * rateIntervalMs the spacing of its own rate limit bucket or 0 if it has none
+ */
+record CommandRoute<C>(String name, int id, C builtIn, long cooldownMs, long rateIntervalMs) {
+
+    boolean isScript() {
+        return builtIn == null;
+    }
+}
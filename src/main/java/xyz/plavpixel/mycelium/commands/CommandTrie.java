@@ -0,0 +1,83 @@
+package xyz.plavpixel.mycelium.commands;
+
+import java.util.Arrays;
+
+/**
+ * case-insensitive trie over command names. lookups walk a slice of the message in place, so resolving
+ * a command allocates nothing. filled once while building the command index, read-only after it is published
+ */
+final class CommandTrie<T> {
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    private static final class Node<T> {
+        private char[] keys = new char[0];
+        private Node<T>[] children = newArray(0);
+        private T value;
+
+        private Node<T> child(char key) {
+            char[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return children[i];
+            }
+            return null;
+        }
+
+        private Node<T> addChild(char key) {
+            int length = keys.length;
+            char[] nextKeys = Arrays.copyOf(keys, length + 1);
+            Node<T>[] nextChildren = Arrays.copyOf(children, length + 1);
+            nextKeys[length] = key;
+            nextChildren[length] = new Node<>();
+            keys = nextKeys;
+            children = nextChildren;
+            return nextChildren[length];
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node<?>[length];
+        }
+    }
+
+    /**
+     * add a name unless it is already taken, returns the value that holds it
+     */
+    T putIfAbsent(String name, T value) {
+        Node<T> node = root;
+        for (int i = 0; i < name.length(); i++) {
+            char key = fold(name.charAt(i));
+            Node<T> next = node.child(key);
+            node = next != null ? next : node.addChild(key);
+        }
+        if (node.value != null) return node.value;
+        node.value = value;
+        size++;
+        return value;
+    }
+
+    /**
+     * the value for text[start, end), ignoring case, or null
+     */
+    T find(CharSequence text, int start, int end) {
+        if (start >= end) return null;
+        Node<T> node = root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.child(fold(text.charAt(i)));
+        }
+        return node != null ? node.value : null;
+    }
+
+    T find(String name) {
+        return find(name, 0, name.length());
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        return Character.toLowerCase(c);
+    }
+}
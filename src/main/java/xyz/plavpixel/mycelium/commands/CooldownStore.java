@@ -0,0 +1,259 @@
+package xyz.plavpixel.mycelium.commands;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * command cooldowns keyed by (user id, command id), stored unboxed. every entry carries its own expiry, so
+ * per-command and per-guild durations need nothing extra. expired entries are reclaimed by a hashed timing
+ * wheel that is advanced by the calls themselves, a bucket at a time, instead of scanning everything.
+ * split into independently locked stripes like {@link xyz.plavpixel.mycelium.script.LongCounterMap}
+ */
+public final class CooldownStore {
+    private static final int STRIPES = 16;
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 512; // buckets, a power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongSupplier clock;
+
+    public CooldownStore() {
+        this(monotonicMillis());
+    }
+
+    /**
+     * clock gives the current time in milliseconds and must never go backwards
+     */
+    CooldownStore(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(now());
+        }
+    }
+
+    /**
+     * milliseconds left on the user's cooldown for the command, 0 if none
+     */
+    public long remainingMillis(long userId, int commandId) {
+        int hash = hash(userId, commandId);
+        return stripeFor(hash).remaining(userId, commandId, hash, now());
+    }
+
+    public boolean isOnCooldown(long userId, int commandId) {
+        return remainingMillis(userId, commandId) > 0;
+    }
+
+    /**
+     * start or restart a cooldown, a duration of 0 or less does nothing
+     */
+    public void apply(long userId, int commandId, long durationMs) {
+        if (durationMs <= 0) return;
+        int hash = hash(userId, commandId);
+        stripeFor(hash).apply(userId, commandId, hash, now(), durationMs);
+    }
+
+    public void clear(long userId, int commandId) {
+        int hash = hash(userId, commandId);
+        stripeFor(hash).clear(userId, commandId, hash, now());
+    }
+
+    /**
+     * entries not yet reclaimed, including expired ones the wheel has not reached
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    // monotonic, so clock adjustments can't extend or cut short a cooldown
+    private static LongSupplier monotonicMillis() {
+        long originNanos = System.nanoTime();
+        return () -> (System.nanoTime() - originNanos) / 1_000_000L;
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[hash >>> 28];
+    }
+
+    private static int hash(long userId, int commandId) {
+        long mixed = (userId ^ ((long) commandId << 48 | commandId)) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static final class Stripe {
+        private static final int INITIAL_CAPACITY = 16;
+
+        // entry pool. an entry keeps its index while it lives, so the table and the wheel refer to it by index
+        private long[] users = new long[INITIAL_CAPACITY];
+        private int[] commands = new int[INITIAL_CAPACITY];
+        private long[] expiries = new long[INITIAL_CAPACITY];
+        private int[] next = new int[INITIAL_CAPACITY]; // next entry in the same wheel bucket or the free list, -1 ends
+        private int allocated;
+        private int freeHead = -1;
+
+        // open addressing over the pool, entry index + 1, 0 is an empty slot
+        private int[] table = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        private final int[] wheel = new int[WHEEL_SIZE]; // first entry per bucket, -1 if empty
+        private long tick; // the last tick whose bucket was swept
+
+        Stripe(long nowMs) {
+            Arrays.fill(wheel, -1);
+            this.tick = nowMs / TICK_MS;
+        }
+
+        synchronized long remaining(long user, int command, int hash, long nowMs) {
+            advance(nowMs);
+            int slot = indexOf(user, command, hash);
+            if (slot < 0) return 0;
+            return Math.max(0, expiries[table[slot] - 1] - nowMs);
+        }
+
+        synchronized void apply(long user, int command, int hash, long nowMs, long durationMs) {
+            advance(nowMs);
+            int slot = indexOf(user, command, hash);
+            if (slot >= 0) {
+                // stays in its bucket, the sweep moves it along if it has not expired by then
+                expiries[table[slot] - 1] = nowMs + durationMs;
+                return;
+            }
+
+            int entry = allocate();
+            users[entry] = user;
+            commands[entry] = command;
+            expiries[entry] = nowMs + durationMs;
+            table[-slot - 1] = entry + 1;
+            link(entry);
+            if (++size > table.length * 3 / 4) {
+                resizeTable();
+            }
+        }
+
+        synchronized void clear(long user, int command, int hash, long nowMs) {
+            advance(nowMs);
+            int slot = indexOf(user, command, hash);
+            if (slot >= 0) {
+                // expire it now, the wheel reclaims it on its next pass
+                expiries[table[slot] - 1] = nowMs;
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * sweep the buckets of every tick since the last call. after a long idle gap one full turn covers them all
+         */
+        private void advance(long nowMs) {
+            long nowTick = nowMs / TICK_MS;
+            long ticks = Math.min(nowTick - tick, WHEEL_SIZE);
+            long from = tick;
+            tick = nowTick;
+            for (long t = from + 1; t <= from + ticks; t++) {
+                sweep((int) (t & WHEEL_MASK), nowMs);
+            }
+        }
+
+        private void sweep(int bucket, long nowMs) {
+            int entry = wheel[bucket];
+            wheel[bucket] = -1;
+            while (entry >= 0) {
+                int following = next[entry];
+                if (expiries[entry] <= nowMs) {
+                    removeFromTable(entry);
+                    next[entry] = freeHead;
+                    freeHead = entry;
+                } else {
+                    link(entry); // restarted, or more than a full turn away
+                }
+                entry = following;
+            }
+        }
+
+        /**
+         * put an entry in the bucket of the first tick after it expires, never one already swept
+         */
+        private void link(int entry) {
+            long due = Math.max(expiries[entry] / TICK_MS + 1, tick + 1);
+            int bucket = (int) (due & WHEEL_MASK);
+            next[entry] = wheel[bucket];
+            wheel[bucket] = entry;
+        }
+
+        private int allocate() {
+            if (freeHead >= 0) {
+                int entry = freeHead;
+                freeHead = next[entry];
+                return entry;
+            }
+            if (allocated == users.length) {
+                int capacity = users.length * 2;
+                users = Arrays.copyOf(users, capacity);
+                commands = Arrays.copyOf(commands, capacity);
+                expiries = Arrays.copyOf(expiries, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            return allocated++;
+        }
+
+        /**
+         * the slot holding the key, or -(slot + 1) for the free slot it would go into
+         */
+        private int indexOf(long user, int command, int hash) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                int entry = table[slot] - 1;
+                if (users[entry] == user && commands[entry] == command) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -slot - 1;
+        }
+
+        private void removeFromTable(int entry) {
+            int slot = indexOf(users[entry], commands[entry], hash(users[entry], commands[entry]));
+            if (slot < 0) return;
+
+            // shift later entries of the probe chain back so lookups never stop at the hole
+            int mask = table.length - 1;
+            int gap = slot;
+            int probe = (gap + 1) & mask;
+            while (table[probe] != 0) {
+                int moved = table[probe] - 1;
+                int home = hash(users[moved], commands[moved]) & mask;
+                if (((probe - home) & mask) >= ((probe - gap) & mask)) {
+                    table[gap] = table[probe];
+                    gap = probe;
+                }
+                probe = (probe + 1) & mask;
+            }
+            table[gap] = 0;
+            size--;
+        }
+
+        private void resizeTable() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            int mask = table.length - 1;
+            for (int value : old) {
+                if (value == 0) continue;
+                int entry = value - 1;
+                int slot = hash(users[entry], commands[entry]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
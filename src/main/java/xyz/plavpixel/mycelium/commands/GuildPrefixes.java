@@ -0,0 +1,124 @@
+package xyz.plavpixel.mycelium.commands;
+
+import xyz.plavpixel.mycelium.config.BotConfig;
+import xyz.plavpixel.mycelium.db.DatabaseManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * per-guild command prefixes from guild_settings, falling back to the configured ones. every stored row is
+ * loaded at startup, writes through here drop the cached entry, and entries reload in the background
+ * every few minutes so rows a script changed with plain sql show up too
+ */
+public final class GuildPrefixes {
+    private static final long REFRESH_MINUTES = 10;
+    private static final int MAX_GUILDS = 100_000;
+    private static final int MAX_PREFIX_LENGTH = 5;
+
+    private final DatabaseManager dbManager;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LoadingCache<Long, Prefixes> cache;
+    private final Prefixes defaults;
+
+    /**
+     * a guild's prefixes, unset ones already filled in with the defaults
+     */
+    public record Prefixes(String user, String mod) {
+    }
+
+    public GuildPrefixes(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        BotConfig config = BotConfig.getInstance();
+        this.defaults = new Prefixes(config.getUserPrefix(), config.getModPrefix());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAX_GUILDS)
+                .refreshAfterWrite(REFRESH_MINUTES, TimeUnit.MINUTES)
+                .build(this::load);
+        loadAll();
+    }
+
+    /**
+     * the prefixes for a guild, 0 for direct messages
+     */
+    public Prefixes get(long guildId) {
+        if (guildId == 0L) return defaults;
+        return cache.get(guildId);
+    }
+
+    /**
+     * store one of a guild's prefixes, null goes back to the default. the cached entry is dropped once the row is written,
+     * the future fails if it could not be
+     */
+    public CompletableFuture<Void> set(long guildId, boolean modPrefix, String prefix) {
+        String column = modPrefix ? "mod_prefix" : "user_prefix";
+        return dbManager.updateAsync(
+                "INSERT INTO guild_settings (guild_id, " + column + ") VALUES (?, ?) " +
+                        "ON CONFLICT(guild_id) DO UPDATE SET " + column + " = excluded." + column,
+                Long.toString(guildId), prefix)
+                .thenRun(() -> cache.invalidate(guildId));
+    }
+
+    /**
+     * why a prefix can't be used, null if it can
+     */
+    public static String validate(String prefix) {
+        if (prefix.isEmpty()) return "the prefix can't be empty.";
+        if (prefix.length() > MAX_PREFIX_LENGTH) return "the prefix can be at most " + MAX_PREFIX_LENGTH + " characters.";
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.isWhitespace(prefix.charAt(i))) return "the prefix can't contain spaces.";
+        }
+        return null;
+    }
+
+    public void invalidate(long guildId) {
+        cache.invalidate(guildId);
+    }
+
+    private Prefixes withDefaults(String userPrefix, String modPrefix) {
+        if (userPrefix == null && modPrefix == null) return defaults;
+        return new Prefixes(userPrefix != null ? userPrefix : defaults.user(), modPrefix != null ? modPrefix : defaults.mod());
+    }
+
+    private void loadAll() {
+        JsonNode rows = parse(dbManager.query("SELECT guild_id, user_prefix, mod_prefix FROM guild_settings"));
+        int loaded = 0;
+        for (JsonNode row : rows) {
+            try {
+                cache.put(Long.parseLong(row.path("guild_id").asText()), fromRow(row));
+                loaded++;
+            } catch (NumberFormatException e) {
+                System.err.println("skipped guild settings with bad guild id: " + row.path("guild_id").asText());
+            }
+        }
+        System.out.println("loaded prefixes for " + loaded + " guilds");
+    }
+
+    private Prefixes load(Long guildId) {
+        JsonNode rows = parse(dbManager.query("SELECT guild_id, user_prefix, mod_prefix FROM guild_settings WHERE guild_id = ?",
+                Long.toString(guildId)));
+        return rows.isEmpty() ? defaults : fromRow(rows.get(0));
+    }
+
+    private Prefixes fromRow(JsonNode row) {
+        return withDefaults(text(row.path("user_prefix")), text(row.path("mod_prefix")));
+    }
+
+    private static String text(JsonNode node) {
+        return node.isTextual() && !node.asText().isEmpty() ? node.asText() : null;
+    }
+
+    private JsonNode parse(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            System.err.println("could not read guild settings: " + e.getMessage());
+            return mapper.createArrayNode();
+        }
+    }
+}
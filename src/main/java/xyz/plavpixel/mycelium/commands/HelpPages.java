@@ -0,0 +1,103 @@
+package xyz.plavpixel.mycelium.commands;
+
+import xyz.plavpixel.mycelium.util.ScriptUtils;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the help output, rendered once per set of commands and prefixes and then sent as is.
+ * fields and pages are split to stay inside discord's embed limits
+ */
+final class HelpPages {
+    private static final int MAX_FIELD_LENGTH = MessageEmbed.VALUE_MAX_LENGTH;
+    private static final int MAX_FIELDS = 25;
+    private static final int MAX_PAGE_LENGTH = 5500; // below the 6000 embed total, leaves room for the footer
+    private static final String TITLE = "mycelium bot help";
+
+    private final SortedMap<String, String> userCommands; // name -> description
+    private final SortedMap<String, String> modCommands;
+    private final Map<GuildPrefixes.Prefixes, List<MessageEmbed>> pages = new ConcurrentHashMap<>();
+
+    HelpPages(SortedMap<String, String> userCommands, SortedMap<String, String> modCommands) {
+        this.userCommands = userCommands;
+        this.modCommands = modCommands;
+    }
+
+    /**
+     * the pages as a guild with these prefixes sees them, never empty
+     */
+    List<MessageEmbed> get(GuildPrefixes.Prefixes prefixes) {
+        return pages.computeIfAbsent(prefixes, this::render);
+    }
+
+    private List<MessageEmbed> render(GuildPrefixes.Prefixes prefixes) {
+        List<MessageEmbed.Field> fields = new ArrayList<>();
+        addSection(fields, "user commands", prefixes.user(), userCommands);
+        addSection(fields, "moderation commands", prefixes.mod(), modCommands);
+        fields.add(new MessageEmbed.Field("need more help?",
+                "• use `" + prefixes.user() + "command` to execute a command\n" +
+                        "• use `" + prefixes.mod() + "command` for moderation\n" +
+                        "• check script files for command-specific usage",
+                false));
+
+        String description = "here are all available commands. use `" + prefixes.user() + "command` or `"
+                + prefixes.mod() + "command`";
+        List<List<MessageEmbed.Field>> split = new ArrayList<>();
+        List<MessageEmbed.Field> page = new ArrayList<>();
+        int length = TITLE.length() + description.length();
+        for (MessageEmbed.Field field : fields) {
+            int fieldLength = field.getName().length() + field.getValue().length();
+            if (!page.isEmpty() && (page.size() == MAX_FIELDS || length + fieldLength > MAX_PAGE_LENGTH)) {
+                split.add(page);
+                page = new ArrayList<>();
+                length = TITLE.length() + description.length();
+            }
+            page.add(field);
+            length += fieldLength;
+        }
+        split.add(page);
+
+        List<MessageEmbed> embeds = new ArrayList<>(split.size());
+        for (int i = 0; i < split.size(); i++) {
+            EmbedBuilder embed = new EmbedBuilder()
+                    .setTitle(TITLE)
+                    .setDescription(description)
+                    .setColor(ScriptUtils.INFO_COLOR);
+            split.get(i).forEach(embed::addField);
+            if (split.size() > 1) {
+                embed.setFooter("page " + (i + 1) + "/" + split.size() + " · " + prefixes.user() + "help <page> for the others");
+            }
+            embeds.add(embed.build());
+        }
+        return List.copyOf(embeds);
+    }
+
+    /**
+     * one line per command, as many fields as the lines need
+     */
+    private static void addSection(List<MessageEmbed.Field> fields, String name, String prefix, SortedMap<String, String> commands) {
+        StringBuilder value = new StringBuilder();
+        String fieldName = name;
+        for (Map.Entry<String, String> command : commands.entrySet()) {
+            String line = "`" + prefix + command.getKey() + "` - " + command.getValue() + "\n";
+            if (line.length() > MAX_FIELD_LENGTH) {
+                line = line.substring(0, MAX_FIELD_LENGTH - 2) + "…\n";
+            }
+            if (value.length() + line.length() > MAX_FIELD_LENGTH) {
+                fields.add(new MessageEmbed.Field(fieldName, value.toString(), false));
+                value.setLength(0);
+                fieldName = name + " (continued)";
+            }
+            value.append(line);
+        }
+        if (!value.isEmpty()) {
+            fields.add(new MessageEmbed.Field(fieldName, value.toString(), false));
+        }
+    }
+}
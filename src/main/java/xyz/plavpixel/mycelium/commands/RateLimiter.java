@@ -0,0 +1,193 @@
+package xyz.plavpixel.mycelium.commands;
+
+import xyz.plavpixel.mycelium.config.BotConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * token buckets in front of command dispatch - global, per guild, per user and per command.
+ * a bucket is a single long, the time its tokens will be fully back (gcra), so taking a token is one cas and
+ * refilling happens lazily by the clock moving on. a limit of 0 turns its bucket off
+ */
+public final class RateLimiter {
+    private static final long WINDOW_MS = 60_000;
+
+    public enum Scope {
+        GLOBAL, GUILD, USER, COMMAND
+    }
+
+    private final Bucket global;
+    private final KeyedBuckets guilds;
+    private final KeyedBuckets users;
+    private final KeyedBuckets commands;
+    private final Map<String, Long> commandIntervals = new HashMap<>(); // lower case command name -> ms per token
+    private final LongAdder[] rejected = new LongAdder[Scope.values().length];
+    private final LongSupplier clock;
+
+    public RateLimiter(BotConfig config) {
+        this(config, monotonicMillis());
+    }
+
+    /**
+     * clock gives the current time in milliseconds and must never go backwards
+     */
+    RateLimiter(BotConfig config, LongSupplier clock) {
+        this.clock = clock;
+        this.global = Bucket.perMinute(config.getGlobalRateLimitPerMinute());
+        this.guilds = KeyedBuckets.of(Bucket.perMinute(config.getGuildRateLimitPerMinute()), config.getRateLimitTableSize());
+        this.users = KeyedBuckets.of(Bucket.perMinute(config.isEnablePerUserRateLimit() ? config.getPerUserRateLimitPerMinute() : 0),
+                config.getRateLimitTableSize());
+        config.getCommandRateLimits().forEach((name, perMinute) -> {
+            if (perMinute > 0) commandIntervals.put(name.toLowerCase(), Math.max(1, WINDOW_MS / perMinute));
+        });
+        this.commands = new KeyedBuckets(null, commandIntervals.isEmpty() ? 0 : 1024);
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * take a token for a message from the user, guild 0 for direct messages.
+     * narrowest bucket first, so a spammer runs dry on their own bucket before touching the shared ones
+     */
+    public Scope tryAcquire(long userId, long guildId) {
+        long now = now();
+        if (!users.tryAcquire(userId, now)) return reject(Scope.USER);
+        if (guildId != 0 && !guilds.tryAcquire(guildId, now)) return reject(Scope.GUILD);
+        if (global != null && !global.tryAcquire(now)) return reject(Scope.GLOBAL);
+        return null;
+    }
+
+    /**
+     * ms between tokens for a command's own bucket, 0 if the command has no limit. looked up once per command
+     * when the command index is built
+     */
+    public long commandInterval(String commandName) {
+        return commandIntervals.getOrDefault(commandName.toLowerCase(), 0L);
+    }
+
+    /**
+     * take a token from a command's own bucket, shared by everyone who runs it
+     */
+    public Scope tryAcquireCommand(CommandRoute<?> route) {
+        long interval = route.rateIntervalMs();
+        if (interval <= 0) return null;
+        // a command's bucket holds a full minute of its limit, like the others
+        return commands.tryAcquire(route.id(), now(), interval, WINDOW_MS - interval) ? null : reject(Scope.COMMAND);
+    }
+
+    public long getRejected(Scope scope) {
+        return rejected[scope.ordinal()].sum();
+    }
+
+    private Scope reject(Scope scope) {
+        rejected[scope.ordinal()].increment();
+        return scope;
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    private static LongSupplier monotonicMillis() {
+        long originNanos = System.nanoTime();
+        return () -> (System.nanoTime() - originNanos) / 1_000_000L;
+    }
+
+    /**
+     * one unkeyed bucket. a limit of n per minute hands out a token every 60000/n ms and holds up to n of them
+     */
+    private static final class Bucket {
+        private final AtomicLong fullAt = new AtomicLong(); // when the bucket is full again, in ms since start
+        private final long interval;
+        private final long tolerance;
+
+        private Bucket(long interval, long tolerance) {
+            this.interval = interval;
+            this.tolerance = tolerance;
+        }
+
+        static Bucket perMinute(int limit) {
+            if (limit <= 0) return null;
+            long interval = Math.max(1, WINDOW_MS / limit);
+            return new Bucket(interval, WINDOW_MS - interval);
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long base = Math.max(current, now);
+                if (base - now > tolerance) return false;
+                if (fullAt.compareAndSet(current, base + interval)) return true;
+            }
+        }
+    }
+
+    /**
+     * buckets for many keys in one fixed table, so memory stays bounded however many users show up.
+     * a slot packs a 24 bit fingerprint of its key with a 40 bit full-at time. a bucket that is full again
+     * is no different from a fresh one, so its slot may be taken over by another key. when every probed slot
+     * is busy the key goes unlimited for that message, the guild and global buckets still apply
+     */
+    private static final class KeyedBuckets {
+        private static final int PROBES = 4;
+        private static final long TIME_MASK = (1L << 40) - 1;
+
+        private final Bucket limit; // interval and tolerance, null if this scope is off
+        private final AtomicLongArray slots;
+        private final int mask;
+
+        private KeyedBuckets(Bucket limit, int size) {
+            this.limit = limit;
+            // a power of two, at least PROBES
+            int capacity = Integer.highestOneBit(Math.max(PROBES, size) - 1) << 1;
+            this.slots = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        static KeyedBuckets of(Bucket limit, int size) {
+            return new KeyedBuckets(limit, limit != null ? size : 0);
+        }
+
+        boolean tryAcquire(long key, long now) {
+            return limit == null || tryAcquire(key, now, limit.interval, limit.tolerance);
+        }
+
+        boolean tryAcquire(long key, long now, long interval, long tolerance) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            int home = (int) (mixed ^ (mixed >>> 32));
+            long fingerprint = ((mixed >>> 40) & 0xFFFFFFL) | 1L; // never 0, so an empty slot matches no key
+
+            while (true) {
+                // the key's own bucket if it has one, else the first free or full-again slot
+                int slot = -1;
+                long current = 0;
+                for (int probe = 0; probe < PROBES; probe++) {
+                    int candidate = (home + probe) & mask;
+                    long value = slots.get(candidate);
+                    if (value >>> 40 == fingerprint) {
+                        slot = candidate;
+                        current = value;
+                        break;
+                    }
+                    if (slot < 0 && (value & TIME_MASK) <= now) {
+                        slot = candidate;
+                        current = value;
+                    }
+                }
+                if (slot < 0) return true;
+
+                long base = current >>> 40 == fingerprint ? Math.max(current & TIME_MASK, now) : now;
+                if (base - now > tolerance) return false;
+                long next = fingerprint << 40 | ((base + interval) & TIME_MASK);
+                if (slots.compareAndSet(slot, current, next)) return true;
+                // lost a race for the slot, look again
+            }
+        }
+    }
+}
@@ -12,7 +12,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * bot configuration management
@@ -32,9 +34,15 @@ public class BotConfig {
     private String userPrefix = "$";
     private String modPrefix = "#";
     private int commandCooldownSeconds = 3;
+    private Map<String, Integer> commandCooldowns = new HashMap<>(); // per command name, overrides the guild and global cooldown
+    private Map<String, Integer> guildCooldowns = new HashMap<>(); // per guild id, overrides the global cooldown
+    private long commandTimeoutMs = 30000; // 0 = no time budget
+    private Map<String, Long> commandTimeouts = new HashMap<>(); // per command name
+    private Map<String, Integer> commandConcurrencyLimits = new HashMap<>(); // per command name, runs at once across the bot
     private boolean allowDmCommands = false;
     private List<Long> ownerIds = new ArrayList<>();
     private boolean mentionRepliesEnabled = true;
+    private boolean suppressCommandMessageEvents = false; // keep command messages away from MESSAGE_RECEIVED handlers
 
     // paths and directories
     private String scriptsDirectory = "./scripts";
@@ -43,15 +51,33 @@ public class BotConfig {
 
     // debug settings
     private boolean debugMode = false;
-    private boolean logCommands = true;
+    private boolean logCommands = true; // ndjson command audit log under logsDirectory
+    private int auditLogMaxFileMb = 50; // 0 = only roll over daily
+    private int auditLogRetentionDays = 30; // 0 = keep forever
     private String logLevel = "INFO";
 
     // script settings
     private List<String> disabledScripts = new ArrayList<>();
     private boolean enableScriptHotReload = false;
+    private long scriptHotReloadDebounceMs = 500;
     private boolean enableJsConsoleAccess = false;
+    private int scriptWorkerThreads = 0; // 0 = one per cpu core
+    private boolean enableScriptCodeCache = true;
+    private long scriptHandlerTimeoutMs = 5000; // 0 = no time budget
+    private long scriptStatementLimit = 0; // per invocation, 0 = unlimited
+    private boolean enableScriptWarmup = false;
+    private int scriptWarmupMaxRounds = 500;
+    private long scriptWarmupMaxMs = 10000;
+
+    // event dispatch
+    private int eventQueueCapacity = 1000; // per event type
+    private String eventOverflowPolicy = "DROP_OLDEST"; // DROP_OLDEST, DROP_NEWEST or COALESCE
+    private Map<String, String> eventOverflowPolicies = new HashMap<>(); // per event type, e.g. VOICE_UPDATE -> COALESCE
+    private int eventMaxInFlight = 64; // per event type, events handed to the script workers but not yet run
+    private String eventRecordingFile = ""; // record inbound events here for the replay driver, empty = off
 
     // audio settings
+    private boolean enableAudio = true; // off drops the voice state intent and cache unless a script handles VOICE_UPDATE
     private int audioPlayerVolume = 50;
     private int audioTimeoutSeconds = 300;
     private int maxQueueSize = 100;
@@ -65,6 +91,9 @@ public class BotConfig {
     private int globalRateLimitPerMinute = 100;
     private boolean enablePerUserRateLimit = true;
     private int perUserRateLimitPerMinute = 10;
+    private int guildRateLimitPerMinute = 0; // 0 = off
+    private Map<String, Integer> commandRateLimits = new HashMap<>(); // per command name, shared by everyone running it
+    private int rateLimitTableSize = 65536; // user and guild buckets held at once, memory stays fixed at 8 bytes each
 
     // getters and setters
     public String getBotName() { return botName; }
@@ -94,6 +123,21 @@ public class BotConfig {
     public int getCommandCooldownSeconds() { return commandCooldownSeconds; }
     public void setCommandCooldownSeconds(int commandCooldownSeconds) { this.commandCooldownSeconds = commandCooldownSeconds; }
 
+    public Map<String, Integer> getCommandCooldowns() { return commandCooldowns; }
+    public void setCommandCooldowns(Map<String, Integer> commandCooldowns) { this.commandCooldowns = commandCooldowns; }
+
+    public Map<String, Integer> getGuildCooldowns() { return guildCooldowns; }
+    public void setGuildCooldowns(Map<String, Integer> guildCooldowns) { this.guildCooldowns = guildCooldowns; }
+
+    public long getCommandTimeoutMs() { return commandTimeoutMs; }
+    public void setCommandTimeoutMs(long commandTimeoutMs) { this.commandTimeoutMs = commandTimeoutMs; }
+
+    public Map<String, Long> getCommandTimeouts() { return commandTimeouts; }
+    public void setCommandTimeouts(Map<String, Long> commandTimeouts) { this.commandTimeouts = commandTimeouts; }
+
+    public Map<String, Integer> getCommandConcurrencyLimits() { return commandConcurrencyLimits; }
+    public void setCommandConcurrencyLimits(Map<String, Integer> commandConcurrencyLimits) { this.commandConcurrencyLimits = commandConcurrencyLimits; }
+
     public boolean isAllowDmCommands() { return allowDmCommands; }
     public void setAllowDmCommands(boolean allowDmCommands) { this.allowDmCommands = allowDmCommands; }
 
@@ -103,6 +147,9 @@ public class BotConfig {
     public boolean isMentionRepliesEnabled() { return mentionRepliesEnabled; }
     public void setMentionRepliesEnabled(boolean mentionRepliesEnabled) { this.mentionRepliesEnabled = mentionRepliesEnabled; }
 
+    public boolean isSuppressCommandMessageEvents() { return suppressCommandMessageEvents; }
+    public void setSuppressCommandMessageEvents(boolean suppressCommandMessageEvents) { this.suppressCommandMessageEvents = suppressCommandMessageEvents; }
+
     public String getScriptsDirectory() { return scriptsDirectory; }
     public void setScriptsDirectory(String scriptsDirectory) { this.scriptsDirectory = scriptsDirectory; }
 
@@ -117,6 +164,10 @@ public class BotConfig {
 
     public boolean isLogCommands() { return logCommands; }
     public void setLogCommands(boolean logCommands) { this.logCommands = logCommands; }
+    public int getAuditLogMaxFileMb() { return auditLogMaxFileMb; }
+    public void setAuditLogMaxFileMb(int auditLogMaxFileMb) { this.auditLogMaxFileMb = auditLogMaxFileMb; }
+    public int getAuditLogRetentionDays() { return auditLogRetentionDays; }
+    public void setAuditLogRetentionDays(int auditLogRetentionDays) { this.auditLogRetentionDays = auditLogRetentionDays; }
 
     public String getLogLevel() { return logLevel; }
     public void setLogLevel(String logLevel) { this.logLevel = logLevel; }
@@ -127,9 +178,51 @@ public class BotConfig {
     public boolean isEnableScriptHotReload() { return enableScriptHotReload; }
     public void setEnableScriptHotReload(boolean enableScriptHotReload) { this.enableScriptHotReload = enableScriptHotReload; }
 
+    public long getScriptHotReloadDebounceMs() { return scriptHotReloadDebounceMs; }
+    public void setScriptHotReloadDebounceMs(long scriptHotReloadDebounceMs) { this.scriptHotReloadDebounceMs = scriptHotReloadDebounceMs; }
+
     public boolean isEnableJsConsoleAccess() { return enableJsConsoleAccess; }
     public void setEnableJsConsoleAccess(boolean enableJsConsoleAccess) { this.enableJsConsoleAccess = enableJsConsoleAccess; }
 
+    public int getScriptWorkerThreads() { return scriptWorkerThreads; }
+    public void setScriptWorkerThreads(int scriptWorkerThreads) { this.scriptWorkerThreads = scriptWorkerThreads; }
+
+    public boolean isEnableScriptCodeCache() { return enableScriptCodeCache; }
+    public void setEnableScriptCodeCache(boolean enableScriptCodeCache) { this.enableScriptCodeCache = enableScriptCodeCache; }
+
+    public long getScriptHandlerTimeoutMs() { return scriptHandlerTimeoutMs; }
+    public void setScriptHandlerTimeoutMs(long scriptHandlerTimeoutMs) { this.scriptHandlerTimeoutMs = scriptHandlerTimeoutMs; }
+
+    public long getScriptStatementLimit() { return scriptStatementLimit; }
+    public void setScriptStatementLimit(long scriptStatementLimit) { this.scriptStatementLimit = scriptStatementLimit; }
+
+    public boolean isEnableScriptWarmup() { return enableScriptWarmup; }
+    public void setEnableScriptWarmup(boolean enableScriptWarmup) { this.enableScriptWarmup = enableScriptWarmup; }
+
+    public int getScriptWarmupMaxRounds() { return scriptWarmupMaxRounds; }
+    public void setScriptWarmupMaxRounds(int scriptWarmupMaxRounds) { this.scriptWarmupMaxRounds = scriptWarmupMaxRounds; }
+
+    public long getScriptWarmupMaxMs() { return scriptWarmupMaxMs; }
+    public void setScriptWarmupMaxMs(long scriptWarmupMaxMs) { this.scriptWarmupMaxMs = scriptWarmupMaxMs; }
+
+    public int getEventQueueCapacity() { return eventQueueCapacity; }
+    public void setEventQueueCapacity(int eventQueueCapacity) { this.eventQueueCapacity = eventQueueCapacity; }
+
+    public String getEventOverflowPolicy() { return eventOverflowPolicy; }
+    public void setEventOverflowPolicy(String eventOverflowPolicy) { this.eventOverflowPolicy = eventOverflowPolicy; }
+
+    public Map<String, String> getEventOverflowPolicies() { return eventOverflowPolicies; }
+    public void setEventOverflowPolicies(Map<String, String> eventOverflowPolicies) { this.eventOverflowPolicies = eventOverflowPolicies; }
+
+    public int getEventMaxInFlight() { return eventMaxInFlight; }
+    public void setEventMaxInFlight(int eventMaxInFlight) { this.eventMaxInFlight = eventMaxInFlight; }
+
+    public boolean isEnableAudio() { return enableAudio; }
+    public void setEnableAudio(boolean enableAudio) { this.enableAudio = enableAudio; }
+
+    public String getEventRecordingFile() { return eventRecordingFile; }
+    public void setEventRecordingFile(String eventRecordingFile) { this.eventRecordingFile = eventRecordingFile; }
+
     public int getAudioPlayerVolume() { return audioPlayerVolume; }
     public void setAudioPlayerVolume(int audioPlayerVolume) { this.audioPlayerVolume = audioPlayerVolume; }
 
@@ -157,6 +250,15 @@ public class BotConfig {
     public int getPerUserRateLimitPerMinute() { return perUserRateLimitPerMinute; }
     public void setPerUserRateLimitPerMinute(int perUserRateLimitPerMinute) { this.perUserRateLimitPerMinute = perUserRateLimitPerMinute; }
 
+    public int getGuildRateLimitPerMinute() { return guildRateLimitPerMinute; }
+    public void setGuildRateLimitPerMinute(int guildRateLimitPerMinute) { this.guildRateLimitPerMinute = guildRateLimitPerMinute; }
+
+    public Map<String, Integer> getCommandRateLimits() { return commandRateLimits; }
+    public void setCommandRateLimits(Map<String, Integer> commandRateLimits) { this.commandRateLimits = commandRateLimits; }
+
+    public int getRateLimitTableSize() { return rateLimitTableSize; }
+    public void setRateLimitTableSize(int rateLimitTableSize) { this.rateLimitTableSize = rateLimitTableSize; }
+
     // utility methods
     @JsonIgnore
     public Color getEmbedColorAsColor() {
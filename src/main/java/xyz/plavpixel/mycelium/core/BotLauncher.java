@@ -5,13 +5,13 @@ import xyz.plavpixel.mycelium.audio.AudioManager;
 import xyz.plavpixel.mycelium.commands.CommandManager;
 import xyz.plavpixel.mycelium.db.DatabaseManager;
 import xyz.plavpixel.mycelium.events.EventManager;
+import xyz.plavpixel.mycelium.events.MessagePipeline;
+import xyz.plavpixel.mycelium.replay.EventRecorder;
 import xyz.plavpixel.mycelium.script.ScriptManager;
 import xyz.plavpixel.mycelium.util.Scheduler;
 import io.github.cdimascio.dotenv.Dotenv;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
-import net.dv8tion.jda.api.requests.GatewayIntent;
-import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -26,6 +26,8 @@ public class BotLauncher {
     private DatabaseManager dbManager;
     private AudioManager audioManager;
     private CommandManager commandManager;
+    private EventManager eventManager;
+    private MessagePipeline messagePipeline;
     private ScriptManager scriptManager;
 
     public static void main(String[] args) throws InterruptedException { new BotLauncher().start(); }
@@ -44,6 +46,9 @@ public class BotLauncher {
         // initialize script manager and load scripts
         scriptManager = new ScriptManager(dbManager, audioManager);
         scriptManager.loadScripts();
+        if (config.isEnableScriptHotReload()) {
+            scriptManager.startHotReload();
+        }
 
         // check token
         String token = dotenv.get("DISCORD_TOKEN");
@@ -52,21 +57,30 @@ public class BotLauncher {
             System.exit(1);
         }
 
+        // event and command listeners
+        eventManager = new EventManager(scriptManager);
+        commandManager = new CommandManager(dbManager, audioManager, scriptManager, eventManager.getDispatcher());
+        messagePipeline = new MessagePipeline(eventManager, commandManager);
+        Runtime.getRuntime().addShutdownHook(new Thread(commandManager::shutdown));
+
+        // only ask the gateway for what the loaded scripts and enabled features use
+        GatewayRequirements requirements = GatewayRequirements.from(scriptManager.getRegistry(), config);
+        requirements.print();
+
         // build jda instance
-        jda = JDABuilder.createDefault(token)
-                .enableIntents(
-                        GatewayIntent.GUILD_MEMBERS,
-                        GatewayIntent.GUILD_MESSAGES,
-                        GatewayIntent.MESSAGE_CONTENT,
-                        GatewayIntent.GUILD_VOICE_STATES
-                )
-                .enableCache(CacheFlag.MEMBER_OVERRIDES, CacheFlag.ROLE_TAGS, CacheFlag.VOICE_STATE)
+        JDABuilder builder = requirements.createBuilder(token)
                 .setActivity(config.getActivity())
-                .addEventListeners(
-                        new EventManager(scriptManager),
-                        new CommandManager(dbManager, audioManager, scriptManager)
-                )
-                .build();
+                .addEventListeners(eventManager, messagePipeline);
+        if (!config.getEventRecordingFile().isBlank()) {
+            try {
+                EventRecorder recorder = new EventRecorder(Paths.get(config.getEventRecordingFile()));
+                Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+                builder.addEventListeners(recorder);
+            } catch (IOException e) {
+                System.err.println("could not start event recording: " + e.getMessage());
+            }
+        }
+        jda = builder.build();
 
         jda.awaitReady();
 
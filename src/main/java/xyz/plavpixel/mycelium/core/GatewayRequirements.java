@@ -0,0 +1,65 @@
+package xyz.plavpixel.mycelium.core;
+
+import xyz.plavpixel.mycelium.config.BotConfig;
+import xyz.plavpixel.mycelium.script.ScriptRegistry;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * the gateway intents, cache flags and member caching the bot needs, worked out from the event types the loaded
+ * scripts handle and the built-in features that are switched on. they are fixed at login, so a script that starts
+ * handling a new event type after a reload only receives it after a restart
+ */
+public record GatewayRequirements(Set<GatewayIntent> intents, Set<CacheFlag> cacheFlags, boolean cacheVoiceMembers) {
+
+    public static GatewayRequirements from(ScriptRegistry registry, BotConfig config) {
+        // prefix commands are always on
+        EnumSet<GatewayIntent> intents = EnumSet.of(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+        EnumSet<CacheFlag> cacheFlags = EnumSet.noneOf(CacheFlag.class);
+        if (config.isAllowDmCommands()) {
+            intents.add(GatewayIntent.DIRECT_MESSAGES);
+        }
+
+        if (registry.hasEventHandler("MEMBER_JOIN") || registry.hasEventHandler("MEMBER_LEAVE")) {
+            intents.add(GatewayIntent.GUILD_MEMBERS);
+        }
+
+        // voice update events need voice states cached, and so does joining the caller's channel for audio
+        boolean voice = config.isEnableAudio() || registry.hasEventHandler("VOICE_UPDATE");
+        if (voice) {
+            intents.add(GatewayIntent.GUILD_VOICE_STATES);
+            cacheFlags.add(CacheFlag.VOICE_STATE);
+        }
+        return new GatewayRequirements(Set.copyOf(intents), Set.copyOf(cacheFlags), voice);
+    }
+
+    /**
+     * the guild owner is always cached, members in voice channels only when voice states are
+     */
+    public MemberCachePolicy memberCachePolicy() {
+        return cacheVoiceMembers ? MemberCachePolicy.VOICE.or(MemberCachePolicy.OWNER) : MemberCachePolicy.OWNER;
+    }
+
+    /**
+     * a builder with exactly these intents and caches, everything else off
+     */
+    public JDABuilder createBuilder(String token) {
+        JDABuilder builder = JDABuilder.createLight(token, intents)
+                .setMemberCachePolicy(memberCachePolicy());
+        if (!cacheFlags.isEmpty()) {
+            builder.enableCache(cacheFlags);
+        }
+        return builder;
+    }
+
+    public void print() {
+        System.out.println("gateway intents: " + intents);
+        System.out.println("cache flags: " + (cacheFlags.isEmpty() ? "none" : cacheFlags)
+                + ", member cache: " + (cacheVoiceMembers ? "owner + voice" : "owner"));
+    }
+}
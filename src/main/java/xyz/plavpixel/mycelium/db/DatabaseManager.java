@@ -7,6 +7,7 @@ import xyz.plavpixel.mycelium.config.BotConfig;
 
 import java.sql.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -92,10 +93,33 @@ public class DatabaseManager {
         }, executor);
     }
 
+    /**
+     * execute an update query asynchronously, the future fails if the statement does
+     */
+    public CompletableFuture<Void> updateAsync(String sql, Object... params) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                executeUpdate(sql, params);
+            } catch (SQLException e) {
+                System.err.println("db execute error: " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
     /**
      * execute an update query synchronously
      */
     public void execute(String sql, Object... params) {
+        try {
+            executeUpdate(sql, params);
+        } catch (SQLException e) {
+            System.err.println("db execute error: " + e.getMessage());
+            if (config.isDebugMode()) e.printStackTrace();
+        }
+    }
+
+    private void executeUpdate(String sql, Object... params) throws SQLException {
         try (Connection conn = DriverManager.getConnection(dbUrl);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
@@ -103,9 +127,6 @@ public class DatabaseManager {
                 pstmt.setObject(i + 1, params[i]);
             }
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("db execute error: " + e.getMessage());
-            if (config.isDebugMode()) e.printStackTrace();
         }
     }
 
@@ -0,0 +1,208 @@
+package xyz.plavpixel.mycelium.events;
+
+import xyz.plavpixel.mycelium.config.BotConfig;
+import xyz.plavpixel.mycelium.script.ScriptManager;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.guild.voice.GenericGuildVoiceEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * hands gateway events to the script manager through one bounded queue per event type.
+ * each queue is drained by a virtual thread that keeps at most eventMaxInFlight events on the script workers,
+ * so a burst fills the queue and then overflows by policy instead of piling up threads and memory
+ */
+public class EventDispatcher {
+    private final ScriptManager scriptManager;
+    private final BotConfig config;
+    private final Map<String, EventLane> lanes = new ConcurrentHashMap<>();
+
+    public EventDispatcher(ScriptManager scriptManager) {
+        this.scriptManager = scriptManager;
+        this.config = BotConfig.getInstance();
+    }
+
+    public void dispatch(String eventType, GenericEvent event) {
+        lanes.computeIfAbsent(eventType, this::createLane).offer(event);
+    }
+
+    /**
+     * the queues created so far, one per event type that has been dispatched
+     */
+    public List<EventLane> getLanes() {
+        return new ArrayList<>(lanes.values());
+    }
+
+    private EventLane createLane(String eventType) {
+        String policyName = config.getEventOverflowPolicies().getOrDefault(eventType, config.getEventOverflowPolicy());
+        OverflowPolicy policy;
+        try {
+            policy = OverflowPolicy.valueOf(policyName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("unknown event overflow policy '" + policyName + "' for " + eventType + ", using DROP_OLDEST");
+            policy = OverflowPolicy.DROP_OLDEST;
+        }
+
+        EventLane lane = new EventLane(eventType, Math.max(1, config.getEventQueueCapacity()), policy,
+                Math.max(1, config.getEventMaxInFlight()));
+        Thread.ofVirtual().name("event-dispatch-" + eventType.toLowerCase(Locale.ROOT)).start(lane::drain);
+        return lane;
+    }
+
+    /**
+     * the queue of one event type
+     */
+    public final class EventLane {
+        private final String eventType;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        // ring buffer rather than a deque so a coalesced event can take the superseded one's slot
+        private final GenericEvent[] queue;
+        private int head;
+        private int size;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Semaphore inFlight;
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+
+        private EventLane(String eventType, int capacity, OverflowPolicy policy, int maxInFlight) {
+            this.eventType = eventType;
+            this.capacity = capacity;
+            this.policy = policy;
+            this.queue = new GenericEvent[capacity];
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        private void offer(GenericEvent event) {
+            lock.lock();
+            try {
+                if (size >= capacity && !makeRoom(event)) {
+                    return;
+                }
+                queue[(head + size) % capacity] = event;
+                size++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * apply the overflow policy to a full queue, false if the new event is not to be appended (dropped or coalesced in place)
+         */
+        private boolean makeRoom(GenericEvent event) {
+            switch (policy) {
+                case DROP_OLDEST -> {
+                    pollFirst();
+                    recordDrop();
+                    return true;
+                }
+                case COALESCE -> {
+                    Object key = coalesceKey(event);
+                    if (key != null) {
+                        for (int i = 0; i < size; i++) {
+                            int slot = (head + i) % capacity;
+                            if (key.equals(coalesceKey(queue[slot]))) {
+                                // the newer event takes the queued one's place so the lane keeps its order
+                                queue[slot] = event;
+                                coalesced.incrementAndGet();
+                                return false;
+                            }
+                        }
+                    }
+                    recordDrop();
+                    return false;
+                }
+                default -> {
+                    recordDrop();
+                    return false;
+                }
+            }
+        }
+
+        private GenericEvent pollFirst() {
+            GenericEvent event = queue[head];
+            queue[head] = null;
+            head = (head + 1) % capacity;
+            size--;
+            return event;
+        }
+
+        private void recordDrop() {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                System.err.println("event queue for " + eventType + " is full (" + capacity + "), dropped " + count + " events so far");
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                GenericEvent event;
+                lock.lock();
+                try {
+                    while (size == 0) {
+                        notEmpty.await();
+                    }
+                    event = pollFirst();
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                dispatched.incrementAndGet();
+                try {
+                    scriptManager.executeEventHandler(eventType, event).whenComplete((result, error) -> inFlight.release());
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    System.err.println("could not dispatch " + eventType + " event: " + e.getMessage());
+                }
+            }
+        }
+
+        public String getEventType() { return eventType; }
+        public OverflowPolicy getPolicy() { return policy; }
+        public int getCapacity() { return capacity; }
+        public long getDispatched() { return dispatched.get(); }
+        public long getDropped() { return dropped.get(); }
+        public long getCoalesced() { return coalesced.get(); }
+
+        public int getQueueDepth() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * events of one type about the same member in the same guild supersede each other, null for everything else
+     */
+    private static Object coalesceKey(GenericEvent event) {
+        if (event instanceof GenericGuildMemberEvent memberEvent) {
+            return List.of(memberEvent.getGuild().getIdLong(), memberEvent.getMember().getIdLong());
+        }
+        if (event instanceof GenericGuildVoiceEvent voiceEvent) {
+            return List.of(voiceEvent.getGuild().getIdLong(), voiceEvent.getMember().getIdLong());
+        }
+        return null;
+    }
+}
@@ -15,17 +15,23 @@ import org.jetbrains.annotations.NotNull;
  */
 public class EventManager extends ListenerAdapter {
     private final ScriptManager scriptManager;
+    private final EventDispatcher dispatcher;
 
     public EventManager(ScriptManager scriptManager) {
         this.scriptManager = scriptManager;
+        this.dispatcher = new EventDispatcher(scriptManager);
     }
 
     private void handleGenericEvent(String eventType, GenericEvent event) {
         if (scriptManager.hasEventHandler(eventType)) {
-            new Thread(() -> scriptManager.executeEventHandler(eventType, event)).start();
+            dispatcher.dispatch(eventType, event);
         }
     }
 
+    public EventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     @Override
     public void onReady(@NotNull ReadyEvent event) {
         handleGenericEvent("READY", event);
@@ -42,9 +48,10 @@ public class EventManager extends ListenerAdapter {
         handleGenericEvent("MEMBER_LEAVE", event);
     }
 
-    @Override
-    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
-        if (event.getAuthor().isBot()) return;
+    /**
+     * a message the pipeline passed on to MESSAGE_RECEIVED handlers, bots are already filtered out
+     */
+    public void handleMessage(MessageReceivedEvent event) {
         handleGenericEvent("MESSAGE_RECEIVED", event);
     }
 
@@ -0,0 +1,67 @@
+package xyz.plavpixel.mycelium.events;
+
+import xyz.plavpixel.mycelium.commands.CommandManager;
+import xyz.plavpixel.mycelium.commands.GuildPrefixes;
+import xyz.plavpixel.mycelium.config.BotConfig;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * the single listener for received messages. each message is classified once and then handed to the
+ * command manager, the MESSAGE_RECEIVED script handlers, or both
+ */
+public class MessagePipeline extends ListenerAdapter {
+    private final EventManager eventManager;
+    private final CommandManager commandManager;
+    private final GuildPrefixes prefixes;
+    private final BotConfig config;
+
+    public enum Kind {
+        USER_COMMAND, MOD_COMMAND, MESSAGE
+    }
+
+    public MessagePipeline(EventManager eventManager, CommandManager commandManager) {
+        this.eventManager = eventManager;
+        this.commandManager = commandManager;
+        this.prefixes = commandManager.getGuildPrefixes();
+        this.config = BotConfig.getInstance();
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        if (event.getAuthor().isBot()) return; // neither commands nor scripts react to bots
+
+        String content = event.getMessage().getContentRaw();
+        GuildPrefixes.Prefixes guildPrefixes = prefixes.get(event.isFromGuild() ? event.getGuild().getIdLong() : 0L);
+        Kind kind = classify(content, guildPrefixes);
+        // webhooks and, unless allowed, direct messages can't run commands but still reach the scripts
+        boolean command = kind != Kind.MESSAGE
+                && !event.isWebhookMessage()
+                && (event.isFromGuild() || config.isAllowDmCommands());
+
+        if (command) {
+            boolean mod = kind == Kind.MOD_COMMAND;
+            commandManager.handleCommand(event, content, guildPrefixes, mod);
+            if (config.isSuppressCommandMessageEvents()) return;
+        }
+        eventManager.handleMessage(event);
+    }
+
+    /**
+     * the longer prefix is tried first, so a mod prefix like "!!" still works next to a user prefix "!".
+     * the user prefix wins when both are the same
+     */
+    public Kind classify(String content, GuildPrefixes.Prefixes guildPrefixes) {
+        String user = guildPrefixes.user();
+        String mod = guildPrefixes.mod();
+        if (mod.length() > user.length()) {
+            if (content.startsWith(mod)) return Kind.MOD_COMMAND;
+            if (content.startsWith(user)) return Kind.USER_COMMAND;
+            return Kind.MESSAGE;
+        }
+        if (content.startsWith(user)) return Kind.USER_COMMAND;
+        if (content.startsWith(mod)) return Kind.MOD_COMMAND;
+        return Kind.MESSAGE;
+    }
+}
@@ -0,0 +1,13 @@
+package xyz.plavpixel.mycelium.events;
+
+/**
+ * what an event queue does with a new event when it is full
+ */
+public enum OverflowPolicy {
+    // discard the oldest queued event to make room
+    DROP_OLDEST,
+    // discard the new event
+    DROP_NEWEST,
+    // replace a queued event about the same member with the new one, otherwise discard the new event
+    COALESCE
+}
@@ -0,0 +1,90 @@
+package xyz.plavpixel.mycelium.replay;
+
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * writes the inbound events the bot reacts to into a recording for the replay driver.
+ * only ids, flags, message content and arrival time are kept
+ */
+public class EventRecorder extends ListenerAdapter {
+    private static final int FLUSH_EVERY = 100;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final long startMillis;
+    private int unflushed;
+    private boolean failed;
+
+    public EventRecorder(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        this.startMillis = System.currentTimeMillis();
+        out.writeInt(EventRecording.MAGIC);
+        out.writeShort(EventRecording.VERSION);
+        System.out.println("recording gateway events to: " + file.toAbsolutePath());
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        int flags = (event.getAuthor().isBot() ? RecordedEvent.FLAG_BOT : 0)
+                | (event.isWebhookMessage() ? RecordedEvent.FLAG_WEBHOOK : 0);
+        record(new RecordedEvent(RecordedEvent.Type.MESSAGE, offset(),
+                event.isFromGuild() ? event.getGuild().getIdLong() : 0L,
+                event.getChannel().getIdLong(),
+                event.getAuthor().getIdLong(),
+                flags,
+                event.getMessage().getContentRaw()));
+    }
+
+    @Override
+    public void onGuildMemberJoin(@NotNull GuildMemberJoinEvent event) {
+        record(new RecordedEvent(RecordedEvent.Type.MEMBER_JOIN, offset(), event.getGuild().getIdLong(), 0L,
+                event.getUser().getIdLong(), event.getUser().isBot() ? RecordedEvent.FLAG_BOT : 0, null));
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
+        record(new RecordedEvent(RecordedEvent.Type.MEMBER_LEAVE, offset(), event.getGuild().getIdLong(), 0L,
+                event.getUser().getIdLong(), event.getUser().isBot() ? RecordedEvent.FLAG_BOT : 0, null));
+    }
+
+    private long offset() {
+        return System.currentTimeMillis() - startMillis;
+    }
+
+    private synchronized void record(RecordedEvent event) {
+        if (failed) return;
+        try {
+            event.write(out);
+            if (++unflushed >= FLUSH_EVERY) {
+                out.flush();
+                unflushed = 0;
+            }
+        } catch (IOException e) {
+            // keep the bot running, the recording just ends here
+            failed = true;
+            System.err.println("stopped recording to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("could not close recording " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package xyz.plavpixel.mycelium.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the file format shared by the recorder and the replay driver: a magic number and version,
+ * then one binary record per event in arrival order
+ */
+public final class EventRecording {
+    static final int MAGIC = 0x4D594352; // "MYCR"
+    static final int VERSION = 1;
+
+    private EventRecording() {
+    }
+
+    /**
+     * read every complete record. a recording cut off mid-record (the bot was killed) ends at the last whole one
+     */
+    public static List<RecordedEvent> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not an event recording");
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("unsupported recording version " + version);
+            }
+
+            List<RecordedEvent> events = new ArrayList<>();
+            while (true) {
+                try {
+                    events.add(RecordedEvent.read(in));
+                } catch (EOFException e) {
+                    return events;
+                }
+            }
+        }
+    }
+}
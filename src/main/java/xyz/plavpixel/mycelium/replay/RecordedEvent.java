@@ -0,0 +1,55 @@
+package xyz.plavpixel.mycelium.replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * one inbound gateway event as stored in a recording. ids only, no entities - replay rebuilds stand-ins from them
+ */
+public record RecordedEvent(Type type, long offsetMillis, long guildId, long channelId, long userId, int flags, String content) {
+    public static final int FLAG_BOT = 1;
+    public static final int FLAG_WEBHOOK = 2;
+
+    public enum Type {
+        MESSAGE, MEMBER_JOIN, MEMBER_LEAVE
+    }
+
+    public boolean isBot() {
+        return (flags & FLAG_BOT) != 0;
+    }
+
+    public boolean isWebhook() {
+        return (flags & FLAG_WEBHOOK) != 0;
+    }
+
+    /**
+     * direct messages are recorded without a guild
+     */
+    public boolean isFromGuild() {
+        return guildId != 0L;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeLong(offsetMillis);
+        out.writeLong(guildId);
+        out.writeLong(channelId);
+        out.writeLong(userId);
+        out.writeByte(flags);
+        if (type == Type.MESSAGE) {
+            out.writeUTF(content);
+        }
+    }
+
+    static RecordedEvent read(DataInputStream in) throws IOException {
+        Type type = Type.values()[in.readUnsignedByte()];
+        long offsetMillis = in.readLong();
+        long guildId = in.readLong();
+        long channelId = in.readLong();
+        long userId = in.readLong();
+        int flags = in.readUnsignedByte();
+        String content = type == Type.MESSAGE ? in.readUTF() : null;
+        return new RecordedEvent(type, offsetMillis, guildId, channelId, userId, flags, content);
+    }
+}
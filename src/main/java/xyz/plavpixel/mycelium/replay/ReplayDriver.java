@@ -0,0 +1,232 @@
+package xyz.plavpixel.mycelium.replay;
+
+import xyz.plavpixel.mycelium.audio.AudioManager;
+import xyz.plavpixel.mycelium.commands.CommandManager;
+import xyz.plavpixel.mycelium.config.BotConfig;
+import xyz.plavpixel.mycelium.db.DatabaseManager;
+import xyz.plavpixel.mycelium.events.EventDispatcher;
+import xyz.plavpixel.mycelium.events.EventManager;
+import xyz.plavpixel.mycelium.events.MessagePipeline;
+import xyz.plavpixel.mycelium.script.ScriptManager;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * feeds a recording into the real command and event listeners, with stub jda entities instead of a gateway
+ * connection, and reports throughput and latency. scripts run for real, so by default the database and the
+ * command log go to a fresh temporary directory. --db and --logs pick other ones, --live uses the configured ones:
+ *
+ * <pre>
+ * java -cp mycelium.jar xyz.plavpixel.mycelium.replay.ReplayDriver recording.bin [speed|max] [--db ./data/replay.db] [--logs dir] [--live]
+ * </pre>
+ *
+ * speed 1 keeps the recorded pacing, 10 plays ten times as fast, max sends everything back to back.
+ * a response is the first rest action the bot queues for an event, usually its reply
+ */
+public class ReplayDriver {
+    // the replay is over once nothing has responded for this long
+    private static final long QUIET_PERIOD_MS = 2000;
+    private static final long MAX_DRAIN_MS = 60_000;
+
+    private final List<RecordedEvent> events;
+    private final double speed; // 0 = as fast as possible
+    private final ReplayStubs stubs = new ReplayStubs();
+    private final ScriptManager scriptManager;
+    private final CommandManager commandManager;
+    private final EventDispatcher dispatcher;
+    private final List<EventListener> listeners;
+
+    public ReplayDriver(List<RecordedEvent> events, double speed) {
+        this.events = events;
+        this.speed = speed;
+
+        DatabaseManager dbManager = new DatabaseManager();
+        AudioManager audioManager = new AudioManager();
+        this.scriptManager = new ScriptManager(dbManager, audioManager);
+        scriptManager.loadScripts();
+
+        // same listeners in the same order as the launcher registers them
+        EventManager eventManager = new EventManager(scriptManager);
+        this.dispatcher = eventManager.getDispatcher();
+        this.commandManager = new CommandManager(dbManager, audioManager, scriptManager, dispatcher);
+        this.listeners = List.of(eventManager, new MessagePipeline(eventManager, commandManager));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayDriver <recording> [speed|max] [--db <database path>] [--logs <directory>] [--live]");
+            System.exit(1);
+        }
+
+        BotConfig config = BotConfig.getInstance();
+        double speed = 1.0;
+        String database = null;
+        String logs = null;
+        boolean live = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--db") && i + 1 < args.length) {
+                database = args[++i];
+            } else if (args[i].equals("--logs") && i + 1 < args.length) {
+                logs = args[++i];
+            } else if (args[i].equals("--live")) {
+                live = true;
+            } else if (args[i].equalsIgnoreCase("max")) {
+                speed = 0;
+            } else {
+                speed = Double.parseDouble(args[i].endsWith("x") ? args[i].substring(0, args[i].length() - 1) : args[i]);
+            }
+        }
+
+        // a replay writes prefixes, script state and command logs, keep it away from the real ones unless asked
+        if (!live && (database == null || logs == null)) {
+            Path scratch = Files.createTempDirectory("mycelium-replay");
+            if (database == null) database = scratch.resolve("replay.db").toString();
+            if (logs == null) logs = scratch.resolve("logs").toString();
+        }
+        if (database != null) config.setDatabasePath(database);
+        if (logs != null) config.setLogsDirectory(logs);
+        System.out.println("replay database: " + Paths.get(config.getDatabasePath()).toAbsolutePath()
+                + ", command logs: " + Paths.get(config.getLogsDirectory()).toAbsolutePath());
+
+        List<RecordedEvent> events = EventRecording.read(Paths.get(args[0]));
+        System.out.println("replaying " + events.size() + " events from " + Paths.get(args[0]).toAbsolutePath()
+                + " at " + (speed > 0 ? speed + "x" : "max speed"));
+
+        ReplayDriver driver = new ReplayDriver(events, speed);
+        driver.run();
+        driver.commandManager.shutdown();
+        driver.scriptManager.shutdown();
+        System.exit(0);
+    }
+
+    public void run() throws InterruptedException {
+        int count = events.size();
+        AtomicLongArray responseNanos = new AtomicLongArray(count); // 0 until the event got a response
+        long[] listenerNanos = new long[count];
+        int errors = 0;
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            RecordedEvent recorded = events.get(i);
+            if (speed > 0) {
+                long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recorded.offsetMillis()) / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+
+            int index = i;
+            long sentNanos = System.nanoTime();
+            GenericEvent event = toEvent(recorded, index,
+                    () -> responseNanos.compareAndSet(index, 0L, Math.max(1L, System.nanoTime() - sentNanos)));
+            for (EventListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    errors++;
+                    if (errors <= 10) System.err.println("listener failed on event " + index + ": " + e);
+                }
+            }
+            listenerNanos[i] = System.nanoTime() - sentNanos;
+        }
+        long sendNanos = System.nanoTime() - startNanos;
+
+        awaitQuiet(responseNanos);
+        report(sendNanos, listenerNanos, responseNanos, errors);
+    }
+
+    private GenericEvent toEvent(RecordedEvent recorded, long responseNumber, ReplayStubs.ResponseListener responses) {
+        JDA jda = stubs.getJda();
+        return switch (recorded.type()) {
+            case MESSAGE -> new MessageReceivedEvent(jda, responseNumber, stubs.message(recorded, responses));
+            case MEMBER_JOIN -> {
+                Guild guild = stubs.guild(recorded.guildId(), responses);
+                User user = stubs.user(recorded.userId(), recorded.isBot(), responses);
+                yield new GuildMemberJoinEvent(jda, responseNumber, stubs.member(guild, user, responses));
+            }
+            case MEMBER_LEAVE -> {
+                Guild guild = stubs.guild(recorded.guildId(), responses);
+                User user = stubs.user(recorded.userId(), recorded.isBot(), responses);
+                yield new GuildMemberRemoveEvent(jda, responseNumber, guild, user, stubs.member(guild, user, responses));
+            }
+        };
+    }
+
+    /**
+     * wait for the scripts to work off their queues - until no new response arrived for a while
+     */
+    private void awaitQuiet(AtomicLongArray responseNanos) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + MAX_DRAIN_MS;
+        int lastResponded = -1;
+        long lastChange = System.currentTimeMillis();
+        while (System.currentTimeMillis() < deadline) {
+            int responded = countResponses(responseNanos);
+            if (responded != lastResponded) {
+                lastResponded = responded;
+                lastChange = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastChange >= QUIET_PERIOD_MS) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        System.err.println("replay did not settle within " + MAX_DRAIN_MS + " ms, reporting what finished");
+    }
+
+    private static int countResponses(AtomicLongArray responseNanos) {
+        int responded = 0;
+        for (int i = 0; i < responseNanos.length(); i++) {
+            if (responseNanos.get(i) != 0L) responded++;
+        }
+        return responded;
+    }
+
+    private void report(long sendNanos, long[] listenerNanos, AtomicLongArray responseNanos, int errors) {
+        int count = listenerNanos.length;
+        long[] responses = new long[countResponses(responseNanos)];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (responseNanos.get(i) != 0L) responses[j++] = responseNanos.get(i);
+        }
+        long[] listeners = listenerNanos.clone();
+        Arrays.sort(listeners);
+        Arrays.sort(responses);
+
+        double seconds = Math.max(1L, sendNanos) / 1_000_000_000.0;
+        System.out.println("-----------------------------------");
+        System.out.printf("replayed %d events in %.2f s (%.0f events/s), %d listener errors%n", count, seconds, count / seconds, errors);
+        System.out.printf("listener time   p50 %.3f ms · p99 %.3f ms · max %.3f ms%n",
+                percentileMillis(listeners, 0.5), percentileMillis(listeners, 0.99), percentileMillis(listeners, 1.0));
+        if (responses.length > 0) {
+            System.out.printf("response time   p50 %.3f ms · p95 %.3f ms · p99 %.3f ms · max %.3f ms (%d responses)%n",
+                    percentileMillis(responses, 0.5), percentileMillis(responses, 0.95),
+                    percentileMillis(responses, 0.99), percentileMillis(responses, 1.0), responses.length);
+        } else {
+            System.out.println("no event got a response");
+        }
+        for (EventDispatcher.EventLane lane : dispatcher.getLanes()) {
+            System.out.printf("event queue %-16s %d dispatched · %d dropped · %d coalesced%n",
+                    lane.getEventType(), lane.getDispatched(), lane.getDropped(), lane.getCoalesced());
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+}
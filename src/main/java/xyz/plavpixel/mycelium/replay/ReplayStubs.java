@@ -0,0 +1,162 @@
+package xyz.plavpixel.mycelium.replay;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.unions.GuildMessageChannelUnion;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * stand-in jda entities for replay, built as dynamic proxies. each stub answers the values it was given,
+ * runs interface default methods, and returns further stubs for everything else.
+ * calling queue/submit/complete on any rest action reached from a stub reports that the bot responded
+ */
+public final class ReplayStubs {
+    private final JDA jda;
+    private final AtomicLong messageIds = new AtomicLong();
+
+    /**
+     * told whenever the bot sends something in response to a replayed event. one send can report several times,
+     * as queue() delegates to its overloads, so listeners keep only the first
+     */
+    public interface ResponseListener {
+        void onResponse();
+    }
+
+    public ReplayStubs() {
+        this.jda = stub(JDA.class, Map.of("getShardInfo", JDA.ShardInfo.SINGLE, "getStatus", JDA.Status.CONNECTED), null);
+    }
+
+    public JDA getJda() {
+        return jda;
+    }
+
+    public Message message(RecordedEvent event, ResponseListener responses) {
+        User author = user(event.userId(), event.isBot(), responses);
+        Guild guild = event.isFromGuild() ? guild(event.guildId(), responses) : null;
+        Member member = guild != null ? member(guild, author, responses) : null;
+
+        Object channel = event.isFromGuild()
+                ? stub(new Class<?>[]{MessageChannelUnion.class, GuildMessageChannelUnion.class},
+                        Map.of("getIdLong", event.channelId(), "getType", ChannelType.TEXT, "getGuild", guild, "getJDA", jda),
+                        responses)
+                : stub(new Class<?>[]{MessageChannelUnion.class},
+                        Map.of("getIdLong", event.channelId(), "getType", ChannelType.PRIVATE, "getJDA", jda),
+                        responses);
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("getIdLong", messageIds.incrementAndGet());
+        values.put("getContentRaw", event.content());
+        values.put("getContentDisplay", event.content());
+        values.put("getContentStripped", event.content());
+        values.put("getAuthor", author);
+        values.put("getChannel", channel);
+        values.put("getChannelType", event.isFromGuild() ? ChannelType.TEXT : ChannelType.PRIVATE);
+        values.put("isFromGuild", event.isFromGuild());
+        values.put("isWebhookMessage", event.isWebhook());
+        values.put("getJDA", jda);
+        if (guild != null) {
+            values.put("getGuild", guild);
+            values.put("getMember", member);
+            values.put("getGuildChannel", channel);
+        }
+        return stub(Message.class, values, responses);
+    }
+
+    public Guild guild(long guildId, ResponseListener responses) {
+        return stub(Guild.class, Map.of("getIdLong", guildId, "getJDA", jda), responses);
+    }
+
+    public User user(long userId, boolean bot, ResponseListener responses) {
+        return stub(User.class, Map.of("getIdLong", userId, "isBot", bot, "getName", "user" + userId, "getJDA", jda), responses);
+    }
+
+    /**
+     * members hold every permission, so mod commands run the same code as for a moderator
+     */
+    public Member member(Guild guild, User user, ResponseListener responses) {
+        return stub(Member.class, Map.of("getIdLong", user.getIdLong(), "getUser", user, "getGuild", guild,
+                "hasPermission", true, "getEffectiveName", user.getName(), "getJDA", jda), responses);
+    }
+
+    private <T> T stub(Class<T> type, Map<String, Object> values, ResponseListener responses) {
+        return type.cast(stub(new Class<?>[]{type}, values, responses));
+    }
+
+    private static Object stub(Class<?>[] types, Map<String, Object> values, ResponseListener responses) {
+        return Proxy.newProxyInstance(ReplayStubs.class.getClassLoader(), types, new StubHandler(values, responses));
+    }
+
+    private static final class StubHandler implements InvocationHandler {
+        private final Map<String, Object> values;
+        private final ResponseListener responses;
+        private final Map<Method, Object> children = new ConcurrentHashMap<>();
+
+        private StubHandler(Map<String, Object> values, ResponseListener responses) {
+            this.values = values;
+            this.responses = responses;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    if (method.getParameterCount() == 1) return proxy == args[0];
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                    break;
+                case "toString":
+                    if (method.getParameterCount() == 0) return "Stub" + values;
+                    break;
+                case "queue":
+                case "submit":
+                case "complete":
+                    if (responses != null) responses.onResponse();
+                    break;
+                default:
+                    break;
+            }
+
+            if (values.containsKey(name)) {
+                return values.get(name);
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+
+            Class<?> returnType = method.getReturnType();
+            if (returnType == void.class) return null;
+            if (returnType.isPrimitive()) return defaultValue(returnType);
+            if (returnType == String.class) return "";
+            if (returnType.isInstance(proxy)) return proxy; // fluent setters and asXxx() casts
+            if (returnType.isInterface()) {
+                return children.computeIfAbsent(method, m -> stub(new Class<?>[]{returnType}, Map.of(), responses));
+            }
+            return null;
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (type == boolean.class) return false;
+            if (type == char.class) return '\0';
+            if (type == byte.class) return (byte) 0;
+            if (type == short.class) return (short) 0;
+            if (type == int.class) return 0;
+            if (type == long.class) return 0L;
+            if (type == float.class) return 0f;
+            return 0d;
+        }
+    }
+}
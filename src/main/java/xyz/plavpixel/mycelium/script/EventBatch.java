@@ -0,0 +1,26 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.util.Map;
+
+/**
+ * batching declared for an event handler - events are collected per guild for windowMs, or until maxSize
+ * of them arrived, and the handler gets them as one array
+ *
+ * <pre>
+ * "batch": {"windowMs": 2000, "maxSize": 50}
+ * </pre>
+ */
+public record EventBatch(long windowMs, int maxSize) {
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    public static EventBatch parse(Map<String, Object> definition) {
+        if (!(definition.get("windowMs") instanceof Number window) || window.longValue() <= 0) {
+            throw new IllegalArgumentException("batch needs a positive windowMs");
+        }
+        Object maxSize = definition.get("maxSize");
+        if (maxSize != null && (!(maxSize instanceof Number size) || size.intValue() <= 0)) {
+            throw new IllegalArgumentException("batch maxSize must be a positive number");
+        }
+        return new EventBatch(window.longValue(), maxSize != null ? ((Number) maxSize).intValue() : DEFAULT_MAX_SIZE);
+    }
+}
@@ -0,0 +1,87 @@
+package xyz.plavpixel.mycelium.script;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * collects events for batched handlers, one open batch per binding and guild.
+ * two bindings sharing a handler function, e.g. for different event types, batch separately.
+ * a batch is flushed when its window ends or when it is full, whichever comes first
+ */
+public class EventBatcher {
+    private final ScheduledExecutorService timer;
+    private final Map<BatchKey, Batch> open = new ConcurrentHashMap<>();
+
+    // bindings are records, so the same declaration after a reload continues the same batch
+    private record BatchKey(ScriptEventBinding binding, long routingKey) {
+    }
+
+    private static final class Batch {
+        private final List<GenericEvent> events = new ArrayList<>();
+        private ScheduledFuture<?> deadline;
+        private boolean closed;
+    }
+
+    public EventBatcher() {
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "script-event-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * add an event to the open batch of a handler for a guild, opening one if needed. flush receives the
+     * finished batch, on the calling thread when it filled up and on the timer thread when its window ended
+     */
+    public void add(ScriptEventBinding binding, long routingKey, GenericEvent event, Consumer<List<GenericEvent>> flush) {
+        BatchKey key = new BatchKey(binding, routingKey);
+        EventBatch settings = binding.batch();
+        while (true) {
+            Batch batch = open.computeIfAbsent(key, k -> {
+                Batch created = new Batch();
+                created.deadline = timer.schedule(() -> close(k, created, flush), settings.windowMs(), TimeUnit.MILLISECONDS);
+                return created;
+            });
+
+            synchronized (batch) {
+                if (batch.closed) continue; // flushed between the lookup and now, start a new one
+                batch.events.add(event);
+                if (batch.events.size() < settings.maxSize()) return;
+                batch.closed = true; // full, closed under the lock so no one else adds past maxSize
+            }
+            batch.deadline.cancel(false);
+            finish(key, batch, flush);
+            return;
+        }
+    }
+
+    private void close(BatchKey key, Batch batch, Consumer<List<GenericEvent>> flush) {
+        synchronized (batch) {
+            if (batch.closed) return;
+            batch.closed = true;
+        }
+        finish(key, batch, flush);
+    }
+
+    /**
+     * hand a closed batch to its handler, nothing is added to it any more
+     */
+    private void finish(BatchKey key, Batch batch, Consumer<List<GenericEvent>> flush) {
+        open.remove(key, batch);
+        flush.accept(List.copyOf(batch.events));
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.plavpixel.mycelium.script;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.channel.unions.AudioChannelUnion;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.guild.voice.GenericGuildVoiceEvent;
+import net.dv8tion.jda.api.events.guild.voice.GuildVoiceUpdateEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * declarative event filter from script metadata, checked in java before an event is queued for a script.
+ * every configured condition has to match
+ *
+ * <pre>
+ * "filter": {"guilds": ["123"], "channels": ["456"], "contentPrefix": "!", "contentRegex": "^hi\\b", "role": "789"}
+ * </pre>
+ */
+public final class EventFilter {
+    private final long[] guildIds;
+    private final long[] channelIds;
+    private final String contentPrefix;
+    private final Pattern contentRegex;
+    private final long roleId;
+
+    private EventFilter(long[] guildIds, long[] channelIds, String contentPrefix, Pattern contentRegex, long roleId) {
+        this.guildIds = guildIds;
+        this.channelIds = channelIds;
+        this.contentPrefix = contentPrefix;
+        this.contentRegex = contentRegex;
+        this.roleId = roleId;
+    }
+
+    /**
+     * compile a filter definition, null when the definition has no conditions
+     *
+     * @throws IllegalArgumentException if an id or the regex is malformed
+     */
+    public static EventFilter compile(Map<String, Object> definition) {
+        long[] guildIds = parseIds(definition.get("guilds"));
+        long[] channelIds = parseIds(definition.get("channels"));
+        String contentPrefix = (String) definition.get("contentPrefix");
+        Object role = definition.get("role");
+        long roleId = role != null ? Long.parseUnsignedLong(role.toString()) : 0L;
+
+        Pattern contentRegex = null;
+        String regex = (String) definition.get("contentRegex");
+        if (regex != null) {
+            try {
+                contentRegex = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("invalid contentRegex: " + e.getDescription(), e);
+            }
+        }
+
+        if (guildIds == null && channelIds == null && contentPrefix == null && contentRegex == null && roleId == 0L) {
+            return null;
+        }
+        return new EventFilter(guildIds, channelIds, contentPrefix, contentRegex, roleId);
+    }
+
+    private static long[] parseIds(Object value) {
+        if (value == null) return null;
+
+        List<?> values = value instanceof List<?> list ? list : List.of(value);
+        long[] ids = new long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Long.parseUnsignedLong(values.get(i).toString());
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public boolean matches(GenericEvent event) {
+        if (guildIds != null && !contains(guildIds, guildId(event))) return false;
+        if (channelIds != null && !matchesChannel(event)) return false;
+        if (contentPrefix != null || contentRegex != null) {
+            if (!(event instanceof MessageReceivedEvent messageEvent)) return false;
+
+            String content = messageEvent.getMessage().getContentRaw();
+            if (contentPrefix != null && !content.startsWith(contentPrefix)) return false;
+            if (contentRegex != null && !contentRegex.matcher(content).find()) return false;
+        }
+        return roleId == 0L || hasRole(member(event));
+    }
+
+    private boolean matchesChannel(GenericEvent event) {
+        if (event instanceof MessageReceivedEvent messageEvent) {
+            return contains(channelIds, messageEvent.getChannel().getIdLong());
+        }
+        if (event instanceof GuildVoiceUpdateEvent voiceEvent) {
+            return contains(channelIds, channelId(voiceEvent.getChannelJoined()))
+                    || contains(channelIds, channelId(voiceEvent.getChannelLeft()));
+        }
+        return false;
+    }
+
+    private boolean hasRole(Member member) {
+        if (member == null) return false;
+        for (Role role : member.getRoles()) {
+            if (role.getIdLong() == roleId) return true;
+        }
+        return false;
+    }
+
+    private static long guildId(GenericEvent event) {
+        if (event instanceof MessageReceivedEvent messageEvent) {
+            return messageEvent.isFromGuild() ? messageEvent.getGuild().getIdLong() : 0L;
+        }
+        if (event instanceof GenericGuildEvent guildEvent) {
+            return guildEvent.getGuild().getIdLong();
+        }
+        return 0L;
+    }
+
+    private static Member member(GenericEvent event) {
+        if (event instanceof MessageReceivedEvent messageEvent) return messageEvent.getMember();
+        if (event instanceof GenericGuildMemberEvent memberEvent) return memberEvent.getMember();
+        if (event instanceof GenericGuildVoiceEvent voiceEvent) return voiceEvent.getMember();
+        return null;
+    }
+
+    private static long channelId(AudioChannelUnion channel) {
+        return channel != null ? channel.getIdLong() : 0L;
+    }
+
+    private static boolean contains(long[] sortedIds, long id) {
+        return id != 0L && Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+}
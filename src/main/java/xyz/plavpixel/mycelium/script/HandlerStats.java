@@ -0,0 +1,64 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * execution statistics of one script handler. latency percentiles come from a ring of the most recent samples
+ */
+public final class HandlerStats {
+    private static final int SAMPLE_SIZE = 1024;
+
+    private final String handlerName;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong sampleCursor = new AtomicLong();
+
+    public HandlerStats(String handlerName) {
+        this.handlerName = handlerName;
+    }
+
+    /**
+     * one invocation: wall time, cpu time of the worker thread (-1 if unsupported) and how long it waited in the worker queue
+     */
+    public void record(long nanos, long cpu, long queued, boolean failed, boolean timedOut) {
+        invocations.increment();
+        totalNanos.add(nanos);
+        if (cpu > 0) cpuNanos.add(cpu);
+        queueNanos.add(queued);
+        if (failed) errors.increment();
+        if (timedOut) timeouts.increment();
+        samples.set((int) (sampleCursor.getAndIncrement() & (SAMPLE_SIZE - 1)), nanos);
+    }
+
+    /**
+     * latency percentile over the recent samples, p in [0, 1]
+     */
+    public long percentileNanos(double p) {
+        int count = (int) Math.min(sampleCursor.get(), SAMPLE_SIZE);
+        if (count == 0) return 0L;
+
+        long[] snapshot = new long[count];
+        for (int i = 0; i < count; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        int index = (int) Math.ceil(p * count) - 1;
+        return snapshot[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public String getHandlerName() { return handlerName; }
+    public long getInvocations() { return invocations.sum(); }
+    public long getErrors() { return errors.sum(); }
+    public long getTimeouts() { return timeouts.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    public long getCpuNanos() { return cpuNanos.sum(); }
+    public long getQueueNanos() { return queueNanos.sum(); }
+}
@@ -0,0 +1,226 @@
+package xyz.plavpixel.mycelium.script;
+
+/**
+ * a long -> long map for scripts, e.g. message counts or last-seen timestamps keyed by user id.
+ * keys and values are stored unboxed in open addressing tables, split into independently locked stripes
+ * so workers on different guilds rarely contend.
+ * discord ids are larger than a javascript number can hold exactly, so pass them as strings
+ */
+public final class LongCounterMap {
+    private static final int STRIPES = 16;
+
+    private final String name;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    LongCounterMap(String name) {
+        this.name = name;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long get(long key) {
+        return getOrDefault(key, 0L);
+    }
+
+    public long get(String key) {
+        return get(Long.parseLong(key));
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        int hash = hash(key);
+        return stripeFor(hash).get(key, hash, defaultValue);
+    }
+
+    public long getOrDefault(String key, long defaultValue) {
+        return getOrDefault(Long.parseLong(key), defaultValue);
+    }
+
+    public boolean has(long key) {
+        int hash = hash(key);
+        return stripeFor(hash).contains(key, hash);
+    }
+
+    public boolean has(String key) {
+        return has(Long.parseLong(key));
+    }
+
+    public void put(long key, long value) {
+        int hash = hash(key);
+        stripeFor(hash).put(key, hash, value);
+    }
+
+    public void put(String key, long value) {
+        put(Long.parseLong(key), value);
+    }
+
+    /**
+     * add to the value of a key, a missing key counts as 0. returns the new value
+     */
+    public long add(long key, long delta) {
+        int hash = hash(key);
+        return stripeFor(hash).add(key, hash, delta);
+    }
+
+    public long add(String key, long delta) {
+        return add(Long.parseLong(key), delta);
+    }
+
+    public long increment(long key) {
+        return add(key, 1L);
+    }
+
+    public long increment(String key) {
+        return add(Long.parseLong(key), 1L);
+    }
+
+    public boolean remove(long key) {
+        int hash = hash(key);
+        return stripeFor(hash).remove(key, hash);
+    }
+
+    public boolean remove(String key) {
+        return remove(Long.parseLong(key));
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private Stripe stripeFor(int hash) {
+        // the top bits pick the stripe, the low bits the slot inside it
+        return stripes[hash >>> 28];
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static final class Stripe {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized long get(long key, int hash, long defaultValue) {
+            int slot = indexOf(key, hash);
+            return slot >= 0 ? values[slot] : defaultValue;
+        }
+
+        synchronized boolean contains(long key, int hash) {
+            return indexOf(key, hash) >= 0;
+        }
+
+        synchronized void put(long key, int hash, long value) {
+            int slot = indexOf(key, hash);
+            if (slot >= 0) {
+                values[slot] = value;
+            } else {
+                insert(-slot - 1, key, value);
+            }
+        }
+
+        synchronized long add(long key, int hash, long delta) {
+            int slot = indexOf(key, hash);
+            if (slot >= 0) {
+                return values[slot] += delta;
+            }
+            insert(-slot - 1, key, delta);
+            return delta;
+        }
+
+        synchronized boolean remove(long key, int hash) {
+            int slot = indexOf(key, hash);
+            if (slot < 0) return false;
+
+            // shift later entries of the probe chain back so lookups never stop at the hole
+            int mask = keys.length - 1;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (used[next]) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            used[gap] = false;
+            size--;
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            keys = new long[INITIAL_CAPACITY];
+            values = new long[INITIAL_CAPACITY];
+            used = new boolean[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        /**
+         * the slot holding the key, or -(slot + 1) for the free slot it would go into
+         */
+        private int indexOf(long key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -slot - 1;
+        }
+
+        private void insert(int slot, long key, long value) {
+            keys[slot] = key;
+            values[slot] = value;
+            used[slot] = true;
+            if (++size > keys.length * 3 / 4) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            values = new long[capacity];
+            used = new boolean[capacity];
+
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (!oldUsed[i]) continue;
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
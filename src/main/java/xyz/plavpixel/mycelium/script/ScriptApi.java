@@ -0,0 +1,66 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+/**
+ * the services handed to scripts, built once per context and passed to context-signature handlers as "api".
+ * read only from the script side - new services can be added here without touching any handler signature
+ */
+public final class ScriptApi implements ProxyObject {
+    private static final String[] KEYS = {"utils", "db", "http", "audio", "scheduler", "time", "async", "store"};
+
+    private final Object utils;
+    private final Object db;
+    private final Object http;
+    private final Object audio;
+    private final Object scheduler;
+    private final Object time;
+    private final Object async;
+    private final Object store;
+
+    public ScriptApi(Object utils, Object db, Object http, Object audio, Object scheduler, Object time, Object async,
+                     Object store) {
+        this.utils = utils;
+        this.db = db;
+        this.http = http;
+        this.audio = audio;
+        this.scheduler = scheduler;
+        this.time = time;
+        this.async = async;
+        this.store = store;
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return switch (key) {
+            case "utils" -> utils;
+            case "db" -> db;
+            case "http" -> http;
+            case "audio" -> audio;
+            case "scheduler" -> scheduler;
+            case "time" -> time;
+            case "async" -> async;
+            case "store" -> store;
+            default -> null;
+        };
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return KEYS;
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return switch (key) {
+            case "utils", "db", "http", "audio", "scheduler", "time", "async", "store" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        throw new UnsupportedOperationException("the script api is read only");
+    }
+}
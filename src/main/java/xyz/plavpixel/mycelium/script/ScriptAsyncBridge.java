@@ -0,0 +1,56 @@
+package xyz.plavpixel.mycelium.script;
+
+import xyz.plavpixel.mycelium.db.DatabaseManager;
+import xyz.plavpixel.mycelium.util.HttpUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * async i/o for scripts, exposed to every context as the global "asyncUtils".
+ * each call returns a thenable, so handlers can await database and http work without blocking their worker
+ */
+public class ScriptAsyncBridge {
+    private final ScriptWorker worker;
+    private final DatabaseManager dbManager;
+    private final HttpUtils httpUtils;
+    private final ScriptInvoker invoker;
+
+    ScriptAsyncBridge(ScriptWorker worker, DatabaseManager dbManager, HttpUtils httpUtils, ScriptInvoker invoker) {
+        this.worker = worker;
+        this.invoker = invoker;
+        this.dbManager = dbManager;
+        this.httpUtils = httpUtils;
+    }
+
+    /**
+     * query and resolve with the rows as a json string
+     */
+    public ScriptPromise query(String sql, Object... params) {
+        return wrap(dbManager.queryAsync(sql, params));
+    }
+
+    public ScriptPromise execute(String sql, Object... params) {
+        return wrap(dbManager.executeAsync(sql, params));
+    }
+
+    public ScriptPromise httpGet(String url) {
+        return wrap(httpUtils.getAsync(url));
+    }
+
+    public ScriptPromise httpPost(String url, String jsonBody) {
+        return wrap(httpUtils.postAsync(url, jsonBody));
+    }
+
+    /**
+     * resolve after the given number of milliseconds without holding the worker
+     */
+    public ScriptPromise delay(long millis) {
+        return wrap(CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS)));
+    }
+
+    private ScriptPromise wrap(CompletableFuture<?> future) {
+        return new ScriptPromise(future, worker, invoker);
+    }
+}
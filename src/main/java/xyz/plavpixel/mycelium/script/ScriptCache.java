@@ -0,0 +1,78 @@
+package xyz.plavpixel.mycelium.script;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.graalvm.polyglot.Value;
+
+/**
+ * a named caffeine cache handed to scripts. it lives on the java side, so it is shared by every worker
+ * and survives reloads. script objects are bound to the context that created them and cannot be stored,
+ * values have to be strings, numbers, booleans or host objects
+ */
+public final class ScriptCache {
+    private final String name;
+    private final Cache<String, Object> cache;
+
+    ScriptCache(String name, Cache<String, Object> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * the cached value, null if absent or expired
+     */
+    public Object get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public Object getOrDefault(String key, Object defaultValue) {
+        Object value = cache.getIfPresent(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * store a value, putting null or undefined removes the key
+     */
+    public void put(String key, Value value) {
+        Object converted = toJava(value);
+        if (converted == null) {
+            cache.invalidate(key);
+        } else {
+            cache.put(key, converted);
+        }
+    }
+
+    public boolean has(String key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    public void remove(String key) {
+        cache.invalidate(key);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Object toJava(Value value) {
+        if (value == null || value.isNull()) return null;
+        if (value.isHostObject()) return value.asHostObject();
+        if (value.isString()) return value.asString();
+        if (value.isBoolean()) return value.asBoolean();
+        if (value.isNumber()) return value.fitsInLong() ? (Object) value.asLong() : (Object) value.asDouble();
+        throw new IllegalArgumentException("cache values must be strings, numbers, booleans or java objects, "
+                + "use JSON.stringify for script objects");
+    }
+}
@@ -0,0 +1,18 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.util.List;
+
+/**
+ * a prefix command declared in a script's metadata, aliases resolve to the same command
+ */
+public record ScriptCommand(String scriptName, String prefix, String name, String handler, String description,
+                            long timeoutMs, boolean contextSignature, boolean simpleSignature,
+                            List<String> aliases) {
+
+    /**
+     * the "prefix:name" key handlers are registered under
+     */
+    public String key() {
+        return prefix + ":" + name;
+    }
+}
@@ -0,0 +1,67 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * immutable lookup of resolved script handlers for one context.
+ * built after scripts are evaluated and swapped in whole, so the hot path never touches the bindings
+ */
+public final class ScriptDispatchTable {
+    public static final ScriptDispatchTable EMPTY = new ScriptDispatchTable(Map.of(), Map.of());
+
+    private final Map<String, List<ScriptHandler>> commandHandlers;
+    private final Map<String, ScriptHandler> functions;
+
+    private ScriptDispatchTable(Map<String, List<ScriptHandler>> commandHandlers, Map<String, ScriptHandler> functions) {
+        this.commandHandlers = commandHandlers;
+        this.functions = functions;
+    }
+
+    /**
+     * resolve every handler name registered in the registry against the given bindings
+     */
+    public static ScriptDispatchTable build(Value bindings, ScriptRegistry registry) {
+        Map<String, ScriptHandler> functions = new HashMap<>();
+        resolveAll(bindings, registry, registry.getEventHandlerNames(), functions);
+        Map<String, List<ScriptHandler>> commands = resolveAll(bindings, registry, registry.getCommandHandlerNames(), functions);
+        return new ScriptDispatchTable(commands, Map.copyOf(functions));
+    }
+
+    private static Map<String, List<ScriptHandler>> resolveAll(Value bindings,
+                                                               ScriptRegistry registry,
+                                                               Map<String, List<String>> names,
+                                                               Map<String, ScriptHandler> functions) {
+        Map<String, List<ScriptHandler>> resolved = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : names.entrySet()) {
+            List<ScriptHandler> handlers = new ArrayList<>(entry.getValue().size());
+            for (String name : entry.getValue()) {
+                ScriptHandler handler = functions.computeIfAbsent(name, n -> ScriptHandler.resolve(bindings, n,
+                        registry.getTimeoutMs(n), registry.usesContextSignature(n), registry.usesSimpleSignature(n)));
+                if (handler != null) {
+                    handlers.add(handler);
+                }
+            }
+            resolved.put(entry.getKey(), List.copyOf(handlers));
+        }
+        return Map.copyOf(resolved);
+    }
+
+    /**
+     * handlers for a "prefix:name" command key, null if the command was never registered
+     */
+    public List<ScriptHandler> getCommandHandlers(String key) {
+        return commandHandlers.get(key);
+    }
+
+    /**
+     * a handler by function name, null if it was not referenced by any metadata or did not resolve
+     */
+    public ScriptHandler getFunction(String name) {
+        return functions.get(name);
+    }
+}
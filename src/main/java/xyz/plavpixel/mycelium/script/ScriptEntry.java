@@ -0,0 +1,20 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Source;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * one script file as last read from disk - its source and everything its metadata declared
+ */
+public record ScriptEntry(String name, long lastModified, long size, Source source,
+                          List<ScriptCommand> commands, List<ScriptEventBinding> events) {
+
+    /**
+     * true when the file on disk still has the modification time and size this entry was read with
+     */
+    public boolean isUpToDate(File file) {
+        return file.lastModified() == lastModified && file.length() == size;
+    }
+}
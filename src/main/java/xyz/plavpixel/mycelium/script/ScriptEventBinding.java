@@ -0,0 +1,14 @@
+package xyz.plavpixel.mycelium.script;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * an event handler declared in a script's metadata, with its optional java-side filter, time budget and batching
+ */
+public record ScriptEventBinding(String scriptName, String eventType, String handler, EventFilter filter, long timeoutMs,
+                                 boolean contextSignature, EventBatch batch) {
+
+    public boolean accepts(GenericEvent event) {
+        return filter == null || filter.matches(event);
+    }
+}
@@ -0,0 +1,24 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+
+/**
+ * a script function resolved once at load time, bound to the context it was resolved in
+ */
+public record ScriptHandler(String name, Value function, long timeoutMs, boolean contextSignature, boolean simpleSignature) {
+
+    public static ScriptHandler resolve(Value bindings, String name, long timeoutMs, boolean contextSignature, boolean simpleSignature) {
+        Value function = bindings.getMember(name);
+        if (function == null || !function.canExecute()) {
+            return null;
+        }
+        return new ScriptHandler(name, function, timeoutMs, contextSignature, simpleSignature);
+    }
+
+    /**
+     * whether a command handler takes (event, utils, commandName, args) instead of the full argument list
+     */
+    public boolean usesSimpleCommandSignature() {
+        return simpleSignature && !contextSignature;
+    }
+}
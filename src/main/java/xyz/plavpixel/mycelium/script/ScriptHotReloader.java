@@ -0,0 +1,94 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * watches the scripts directory and hands batches of changed script names to a reload callback.
+ * changes are debounced so an editor writing a file in several steps triggers a single reload
+ */
+public class ScriptHotReloader {
+    private final Path directory;
+    private final long debounceMs;
+    private final Consumer<Set<String>> reloadCallback;
+    private final WatchService watchService;
+    private final Thread watchThread;
+
+    public ScriptHotReloader(Path directory, long debounceMs, Consumer<Set<String>> reloadCallback) throws IOException {
+        this.directory = directory;
+        this.debounceMs = Math.max(0, debounceMs);
+        this.reloadCallback = reloadCallback;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchThread = new Thread(this::watchLoop, "script-hot-reload");
+        this.watchThread.setDaemon(true);
+
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    public void start() {
+        watchThread.start();
+    }
+
+    private void watchLoop() {
+        Set<String> pending = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // block for the first change, then keep collecting until the directory goes quiet
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMs, TimeUnit.MILLISECONDS);
+
+                if (key == null) {
+                    Set<String> changed = Set.copyOf(pending);
+                    pending.clear();
+                    System.out.println("detected changes in " + changed.size() + " script(s): " + String.join(", ", changed));
+                    try {
+                        reloadCallback.accept(changed);
+                    } catch (Exception e) {
+                        System.err.println("script hot reload failed: " + e.getMessage());
+                    }
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+
+                    Path changedPath = (Path) event.context();
+                    String fileName = changedPath.getFileName().toString();
+                    if (fileName.endsWith(".js")) {
+                        pending.add(fileName);
+                    }
+                }
+
+                if (!key.reset()) {
+                    System.err.println("scripts directory is no longer accessible, hot reload stopped: " + directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    public void stop() {
+        watchThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("error closing script watcher: " + e.getMessage());
+        }
+    }
+}
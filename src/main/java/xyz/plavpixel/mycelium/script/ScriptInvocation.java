@@ -0,0 +1,73 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+/**
+ * what a single handler call is about, passed to context-signature handlers as "ctx".
+ * event handlers get the event, batched event handlers an array of events, commands also get the command name
+ * and raw args, scheduled tasks get jda
+ */
+public final class ScriptInvocation implements ProxyObject {
+    private static final String[] KEYS = {"event", "events", "command", "args", "jda"};
+
+    private final Object event;
+    private final Object events;
+    private final String command;
+    private final String args;
+    private final Object jda;
+
+    private ScriptInvocation(Object event, Object events, String command, String args, Object jda) {
+        this.event = event;
+        this.events = events;
+        this.command = command;
+        this.args = args;
+        this.jda = jda;
+    }
+
+    public static ScriptInvocation forEvent(Object event) {
+        return new ScriptInvocation(event, null, null, null, null);
+    }
+
+    public static ScriptInvocation forBatch(Object events) {
+        return new ScriptInvocation(null, events, null, null, null);
+    }
+
+    public static ScriptInvocation forCommand(Object event, String command, String args) {
+        return new ScriptInvocation(event, null, command, args, null);
+    }
+
+    public static ScriptInvocation forScheduledTask(Object jda) {
+        return new ScriptInvocation(null, null, null, null, jda);
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return switch (key) {
+            case "event" -> event;
+            case "events" -> events;
+            case "command" -> command;
+            case "args" -> args;
+            case "jda" -> jda;
+            default -> null;
+        };
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return KEYS;
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return switch (key) {
+            case "event", "events", "command", "args", "jda" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        throw new UnsupportedOperationException("the invocation context is read only");
+    }
+}
@@ -0,0 +1,11 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+
+/**
+ * runs a script function on its worker thread under a handler's time budget and statistics, like the handlers themselves
+ */
+@FunctionalInterface
+interface ScriptInvoker {
+    Value invoke(ScriptWorker worker, String handlerName, Value function, long timeoutMs, Object... args);
+}
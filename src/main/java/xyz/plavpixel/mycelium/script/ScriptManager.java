@@ -1,8 +1,5 @@
 package xyz.plavpixel.mycelium.script;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import xyz.plavpixel.mycelium.audio.AudioManager;
 import xyz.plavpixel.mycelium.config.BotConfig;
 import xyz.plavpixel.mycelium.db.DatabaseManager;
@@ -13,42 +10,72 @@ import xyz.plavpixel.mycelium.util.TimeUtils;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
-import org.graalvm.polyglot.io.IOAccess;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
- * manages javascript script loading and execution
+ * manages javascript script loading and execution.
+ * scripts are evaluated into a pool of contexts sharing one engine, invocations are routed by guild
  */
 public class ScriptManager {
+    // warm-up compares the mean latency of consecutive windows of this many rounds
+    private static final int WARMUP_WINDOW = 25;
+    private static final long LOAD_TIMEOUT_MS = 30_000;
+    // how long warm-up may run past its budget: the call in flight at the deadline, and the watchdog stopping it
+    private static final long WARMUP_GRACE_MS = 10_000;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
     private final DatabaseManager dbManager;
     private final AudioManager audioManager;
     private final HttpUtils httpUtils;
     private Scheduler scheduler;
     private final TimeUtils timeUtils;
-    private Context context;
-    private final Map<String, List<String>> eventHandlers;
-    private final Map<String, List<String>> prefixCommandHandlers;
+    private final Engine engine;
+    private final ScriptSourceCache sourceCache;
+    private final List<ScriptWorker> workers;
+    private final ScriptUtils scriptUtils;
     private final File scriptsDirectory;
     private final BotConfig config;
-    private final ObjectMapper jsonMapper;
-    private final ExecutorService scriptExecutor;
+    private final ScriptMetadataParser metadataParser;
+    private ScriptHotReloader hotReloader;
+    private final ScheduledExecutorService watchdog;
+    private final ExecutorService interrupter; // waits out interrupts so the watchdog never blocks
+    private final ResourceLimits resourceLimits;
+    private final ScriptMetrics metrics;
+    private final ScriptStore store;
+    private final ScriptProfiler profiler;
+    private final EventBatcher batcher;
+    // rebuilt and swapped whole on every load
+    private volatile ScriptRegistry registry;
 
     public ScriptManager(DatabaseManager dbManager, AudioManager audioManager) {
         this.dbManager = dbManager;
@@ -57,217 +84,663 @@ public class ScriptManager {
         this.timeUtils = new TimeUtils();
         this.config = BotConfig.getInstance();
         this.scriptsDirectory = new File(config.getScriptsDirectory());
-        this.jsonMapper = new ObjectMapper();
-        this.eventHandlers = new ConcurrentHashMap<>();
-        this.prefixCommandHandlers = new ConcurrentHashMap<>();
-        this.scriptExecutor = Executors.newSingleThreadExecutor();
+        this.metadataParser = new ScriptMetadataParser();
+        this.scriptUtils = new ScriptUtils();
+        this.registry = ScriptRegistry.EMPTY;
+        this.engine = createEngine();
+        this.sourceCache = new ScriptSourceCache();
+        this.metrics = new ScriptMetrics();
+        this.store = new ScriptStore();
+        this.profiler = new ScriptProfiler(engine);
+        this.batcher = new EventBatcher();
+        this.resourceLimits = config.getScriptStatementLimit() > 0
+                ? ResourceLimits.newBuilder().statementLimit(config.getScriptStatementLimit(), null).build()
+                : null;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "script-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger interrupterIds = new AtomicInteger();
+        this.interrupter = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "script-interrupter-" + interrupterIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        System.out.println("script manager initialized with scripts directory: " + scriptsDirectory.getAbsolutePath());
+        int workerCount = config.getScriptWorkerThreads() > 0
+                ? config.getScriptWorkerThreads()
+                : Runtime.getRuntime().availableProcessors();
+        List<ScriptWorker> pool = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            pool.add(new ScriptWorker(i));
+        }
+        this.workers = List.copyOf(pool);
+
+        System.out.println("script manager initialized with scripts directory: " + scriptsDirectory.getAbsolutePath()
+                + " (" + workerCount + " script workers)");
     }
 
     public void setScheduler(Scheduler scheduler) {
         this.scheduler = scheduler;
+        // the installed api objects still hold the previous scheduler
+        for (ScriptWorker worker : workers) {
+            worker.submit(() -> installGlobals(worker));
+        }
     }
 
-    public void loadScripts() {
-        // submit to single thread to avoid threading issues
-        Future<?> future = scriptExecutor.submit(() -> {
-            eventHandlers.clear();
-            prefixCommandHandlers.clear();
-            initializeContext();
+    /**
+     * start watching the scripts directory and reload changed scripts in place
+     */
+    public synchronized void startHotReload() {
+        if (hotReloader != null) return;
 
-            File[] files = scriptsDirectory.listFiles((dir, name) -> name.endsWith(".js"));
-            if (files == null) {
-                System.err.println("error: could not find scripts directory: " + scriptsDirectory.getPath());
-                return;
-            }
-
-            System.out.println("loading scripts from: " + scriptsDirectory.getAbsolutePath());
-            System.out.println("found " + files.length + " script files");
-
-            Pattern pattern = Pattern.compile("/\\*\\*([\\s\\S]*?)\\*/");
-
-            for (File file : files) {
-                String scriptName = file.getName();
-                if (config.getDisabledScripts().contains(scriptName)) {
-                    System.out.println("skipping disabled script: " + scriptName);
-                    continue;
-                }
+        try {
+            hotReloader = new ScriptHotReloader(scriptsDirectory.toPath(), config.getScriptHotReloadDebounceMs(), this::reloadScripts);
+            hotReloader.start();
+            System.out.println("script hot reload enabled for: " + scriptsDirectory.getAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("could not start script hot reload: " + e.getMessage());
+        }
+    }
 
-                try {
-                    String scriptContent = Files.readString(file.toPath());
-                    Matcher matcher = pattern.matcher(scriptContent);
+    /**
+     * load every script into fresh contexts. false if the contexts did not all finish loading, they may
+     * still be evaluating in the background then
+     */
+    public synchronized boolean loadScripts() {
+        long startNanos = System.nanoTime();
+        File[] files = scriptsDirectory.listFiles((dir, name) -> name.endsWith(".js"));
+        if (files == null) {
+            System.err.println("error: could not find scripts directory: " + scriptsDirectory.getPath());
+            return false;
+        }
 
-                    if (matcher.find()) {
-                        String metadataBlock = matcher.group(1).trim();
-                        parseMetadata(metadataBlock, scriptName);
+        System.out.println("loading scripts from: " + scriptsDirectory.getAbsolutePath());
+        System.out.println("found " + files.length + " script files");
+
+        // reading, metadata parsing and source building are independent per file, so fan them out
+        ScriptRegistry previous = registry;
+        Map<String, Long> readTimes = new ConcurrentHashMap<>();
+        AtomicInteger unchanged = new AtomicInteger();
+        Map<String, ScriptEntry> loaded = Arrays.stream(files)
+                .parallel()
+                .map(file -> {
+                    long fileStart = System.nanoTime();
+                    ScriptEntry entry = previous.getEntry(file.getName());
+                    if (entry != null && entry.isUpToDate(file) && !config.getDisabledScripts().contains(file.getName())) {
+                        unchanged.incrementAndGet();
+                    } else {
+                        entry = readScript(file);
                     }
+                    readTimes.put(file.getName(), System.nanoTime() - fileStart);
+                    return entry;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(ScriptEntry::name, entry -> entry));
+
+        ScriptRegistry next = new ScriptRegistry(loaded);
+        registry = next;
+        sourceCache.retainAll(next.getEntries().stream().map(ScriptEntry::source).toList());
+        long readNanos = System.nanoTime() - startNanos;
+
+        // evaluation has to be serial within a context, but the contexts load side by side
+        Map<String, Long> evalTimes = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>(workers.size());
+        for (ScriptWorker worker : workers) {
+            futures.add(worker.submit(() -> initializeWorker(worker, next, evalTimes)));
+        }
 
-                    context.eval(Source.newBuilder("js", scriptContent, scriptName).build());
-                    System.out.println("✓ loaded script: " + scriptName);
-                } catch (IOException | PolyglotException e) {
-                    System.err.println("✗ failed to load script: " + scriptName + " - " + e.getMessage());
+        if (!awaitWorkers(futures, "script loading", LOAD_TIMEOUT_MS)) {
+            return false;
+        }
+        long totalNanos = System.nanoTime() - startNanos;
+        System.out.println("script loading complete. registered " + next.getCommandHandlerNames().size() + " prefix command handlers");
+        System.out.printf("loaded %d scripts (%d unchanged) into %d contexts in %d ms (read %d ms, evaluate %d ms)%n",
+                next.size(), unchanged.get(), workers.size(),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                TimeUnit.NANOSECONDS.toMillis(readNanos),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos - readNanos));
+        printLoadReport(readTimes, evalTimes);
+
+        if (config.isEnableScriptWarmup()) {
+            warmUp(next);
+        }
+        return true;
+    }
+
+    /**
+     * give a worker a fresh context and evaluate every script into it. must run on the worker thread
+     */
+    private void initializeWorker(ScriptWorker worker, ScriptRegistry scripts, Map<String, Long> evalTimes) {
+        worker.resetContext(engine, config, resourceLimits);
+        installGlobals(worker);
+        for (ScriptEntry entry : scripts.getEntries()) {
+            long evalStart = System.nanoTime();
+            try {
+                worker.getContext().eval(entry.source());
+                if (worker.getId() == 0) {
+                    System.out.println("✓ loaded script: " + entry.name());
+                }
+            } catch (PolyglotException e) {
+                if (worker.getId() == 0) {
+                    System.err.println("✗ failed to load script: " + entry.name() + " - " + e.getMessage());
                     if (config.isDebugMode()) e.printStackTrace();
                 }
             }
+            evalTimes.merge(entry.name(), System.nanoTime() - evalStart, Math::max);
+        }
+        worker.setDispatchTable(ScriptDispatchTable.build(worker.getContext().getBindings("js"), scripts));
+    }
 
-            System.out.println("script loading complete. registered " + prefixCommandHandlers.size() + " prefix command handlers");
-        });
+    /**
+     * per-script load times, slowest first. evaluate is the slowest context for that script
+     */
+    private void printLoadReport(Map<String, Long> readTimes, Map<String, Long> evalTimes) {
+        if (evalTimes.isEmpty()) return;
+
+        System.out.println("script load times (read / evaluate):");
+        evalTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> System.out.printf("  %-32s %6.1f ms / %7.1f ms%n",
+                        entry.getKey(),
+                        readTimes.getOrDefault(entry.getKey(), 0L) / 1_000_000.0,
+                        entry.getValue() / 1_000_000.0));
+    }
 
-        try {
-            future.get(30, TimeUnit.SECONDS); // wait for loading to complete
-        } catch (TimeoutException e) {
-            System.err.println("script loading timed out");
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("script loading failed: " + e.getMessage());
+    /**
+     * call every registered handler with stand-in arguments until its latency stops improving, so the first real
+     * invocations after a load run compiled code instead of the interpreter. every argument and service is a stub
+     * meanwhile, so warm-up can't reply, write or schedule anything
+     */
+    private void warmUp(ScriptRegistry scripts) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(config.getScriptWarmupMaxMs());
+        // handler -> {first call, settled mean}, slowest worker wins
+        Map<String, long[]> latencies = new ConcurrentHashMap<>();
+        AtomicInteger rounds = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>(workers.size());
+        for (ScriptWorker worker : workers) {
+            futures.add(worker.submit(() -> rounds.accumulateAndGet(warmUpWorker(worker, scripts, deadline, latencies), Math::max)));
         }
+        awaitWorkers(futures, "script warm-up",
+                config.getScriptWarmupMaxMs() + Math.max(0L, config.getScriptHandlerTimeoutMs()) + WARMUP_GRACE_MS);
+
+        if (latencies.isEmpty()) return;
+        System.out.printf("script warm-up finished in %d ms (%d rounds, %d handlers)%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), rounds.get(), latencies.size());
+        latencies.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> System.out.printf("  %-32s %8.3f ms -> %7.3f ms%n",
+                        entry.getKey(), entry.getValue()[0] / 1_000_000.0, entry.getValue()[1] / 1_000_000.0));
     }
 
-    private void parseMetadata(String json, String scriptName) {
+    /**
+     * warm up the handlers of one worker, returns the number of rounds it ran. must run on the worker thread
+     */
+    private int warmUpWorker(ScriptWorker worker, ScriptRegistry scripts, long deadline, Map<String, long[]> latencies) {
+        ScriptDispatchTable table = worker.getDispatchTable();
+        List<ScriptHandler> handlers = new ArrayList<>();
+        List<String> commandNames = new ArrayList<>();
+        for (ScriptCommand command : scripts.getCommands()) {
+            ScriptHandler handler = table.getFunction(command.handler());
+            if (handler != null) {
+                handlers.add(handler);
+                commandNames.add(command.name());
+            }
+        }
+        for (List<String> names : scripts.getEventHandlerNames().values()) {
+            for (String name : names) {
+                ScriptHandler handler = table.getFunction(name);
+                if (handler != null) {
+                    handlers.add(handler);
+                    commandNames.add(null);
+                }
+            }
+        }
+        if (handlers.isEmpty()) return 0;
+
+        // scripts reaching for the globals directly must not hit the real services either
+        ScriptStub stub = ScriptStub.INSTANCE;
+        ScriptApi stubApi = new ScriptApi(stub, stub, stub, stub, stub, stub, stub, stub);
+        Value bindings = worker.getContext().getBindings("js");
+        bindings.putMember("asyncUtils", ScriptStub.INSTANCE);
+        bindings.putMember("store", ScriptStub.INSTANCE);
+        bindings.putMember("api", stubApi);
+
+        int count = handlers.size();
+        long[] first = new long[count];
+        long[] window = new long[count];
+        long[] settled = null;
+        long previousWindowNanos = Long.MAX_VALUE;
+        int round = 0;
         try {
-            List<Map<String, Object>> definitions = jsonMapper.readValue(json, new TypeReference<>() {});
-            System.out.println("parsing metadata from " + scriptName + " - found " + definitions.size() + " definitions");
-
-            for (Map<String, Object> def : definitions) {
-                // event handlers
-                if (def.containsKey("event") && def.containsKey("handler")) {
-                    String eventType = ((String) def.get("event")).toUpperCase(Locale.ROOT);
-                    String handlerName = (String) def.get("handler");
-                    eventHandlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handlerName);
-                    System.out.println("  - registered event handler: " + eventType + " -> " + handlerName);
+            warmup:
+            while (round < config.getScriptWarmupMaxRounds() && System.nanoTime() < deadline) {
+                for (int i = 0; i < count; i++) {
+                    long callStart = System.nanoTime();
+                    try {
+                        warmUpCall(worker, handlers.get(i), commandNames.get(i), stubApi);
+                    } catch (ScriptTimeoutException e) {
+                        System.err.println("stopping warm-up on script-worker-" + worker.getId() + ": " + e.getMessage());
+                        break warmup;
+                    } catch (Exception e) {
+                        // stand-ins are not real events, handlers are free to fail on them.
+                        // a replaced table means the context was restored and these handlers are gone
+                        if (worker.getDispatchTable() != table) break warmup;
+                    }
+                    long elapsed = System.nanoTime() - callStart;
+                    if (round == 0) first[i] = elapsed;
+                    window[i] += elapsed;
                 }
-                // prefix commands
-                else if (def.containsKey("prefix") && def.containsKey("handler") && def.containsKey("name")) {
-                    String prefixType = (String) def.get("prefix");
-                    String commandName = (String) def.get("name");
-                    String handlerName = (String) def.get("handler");
-
-                    String key = prefixType + ":" + commandName;
-                    prefixCommandHandlers.computeIfAbsent(key, k -> new ArrayList<>()).add(handlerName);
-                    System.out.println("  - registered prefix command: " + prefixType + ":" + commandName + " -> " + handlerName);
+                round++;
+
+                if (round % WARMUP_WINDOW == 0) {
+                    long windowNanos = Arrays.stream(window).sum();
+                    settled = window.clone();
+                    Arrays.fill(window, 0L);
+                    // less than 5% faster than the window before, compilation has settled
+                    if (windowNanos > previousWindowNanos * 0.95) break;
+                    previousWindowNanos = windowNanos;
                 }
             }
-        } catch (JsonProcessingException e) {
-            System.err.println("error parsing metadata in " + scriptName + ": " + e.getMessage());
+        } finally {
+            installGlobals(worker);
         }
+
+        int settledRounds = settled != null ? WARMUP_WINDOW : Math.max(1, round % WARMUP_WINDOW);
+        long[] settledNanos = settled != null ? settled : window;
+        for (int i = 0; i < count; i++) {
+            long[] sample = {first[i], settledNanos[i] / settledRounds};
+            latencies.merge(handlers.get(i).name(), sample,
+                    (a, b) -> new long[]{Math.max(a[0], b[0]), Math.max(a[1], b[1])});
+        }
+        return round;
     }
 
-    // handle user prefix commands from scripts
-    public void handleUserCommand(MessageReceivedEvent event, String commandName, String args) {
-        scriptExecutor.submit(() -> {
-            String key = "user:" + commandName;
-            List<String> handlers = prefixCommandHandlers.get(key);
+    private void warmUpCall(ScriptWorker worker, ScriptHandler handler, String commandName, ScriptApi stubApi) {
+        Object event = ScriptStub.INSTANCE;
+        if (handler.contextSignature()) {
+            ScriptInvocation invocation = commandName != null
+                    ? ScriptInvocation.forCommand(event, commandName, "")
+                    : ScriptInvocation.forEvent(event);
+            execute(worker, handler.name(), handler.function(), handler.timeoutMs(), null, invocation, stubApi);
+        } else if (commandName == null) {
+            execute(worker, handler.name(), handler.function(), handler.timeoutMs(), null,
+                    event, event, event, event, event, event, event);
+        } else if (handler.usesSimpleCommandSignature()) {
+            execute(worker, handler.name(), handler.function(), handler.timeoutMs(), null, event, event, commandName, "");
+        } else {
+            execute(worker, handler.name(), handler.function(), handler.timeoutMs(), null,
+                    event, event, event, event, event, event, event, commandName, "");
+        }
+    }
 
-            if (handlers == null || handlers.isEmpty()) {
-                System.out.println("no script handler found for user command: " + commandName);
-                ScriptUtils utils = new ScriptUtils();
-                EmbedBuilder embed = utils.createErrorEmbed("command not found",
-                        "the command `" + commandName + "` was not found. use `$help` for available commands.");
-                event.getMessage().replyEmbeds(embed.build()).queue();
-                return;
+    /**
+     * re-evaluate only the given script files into the live contexts and swap in their handler registrations.
+     * unchanged scripts keep their compiled state. falls back to a full load when a script cannot be re-evaluated in place
+     */
+    public synchronized void reloadScripts(Set<String> changedScripts) {
+        long startNanos = System.nanoTime();
+        ScriptRegistry previous = registry;
+        List<ScriptEntry> toEvaluate = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for (String scriptName : changedScripts) {
+            File file = new File(scriptsDirectory, scriptName);
+            ScriptEntry current = previous.getEntry(scriptName);
+            if (current != null && file.isFile() && current.isUpToDate(file)) {
+                continue; // touched but not modified
             }
 
-            System.out.println("executing user command: " + commandName + " with args: " + args);
+            ScriptEntry entry = file.isFile() ? readScript(file) : null;
+            if (entry == null) {
+                if (current != null) {
+                    removed.add(scriptName);
+                    System.out.println("unregistered script: " + scriptName);
+                }
+                continue;
+            }
+            toEvaluate.add(entry);
+        }
 
-            for (String handlerName : handlers) {
-                executePrefixCommandHandler(event, handlerName, commandName, args);
+        if (toEvaluate.isEmpty() && removed.isEmpty()) return;
+
+        ScriptRegistry next = previous.with(toEvaluate, removed);
+        registry = next;
+        // every save hashes to a new source, drop the revisions nothing uses any more
+        sourceCache.retainAll(next.getEntries().stream().map(ScriptEntry::source).toList());
+        AtomicBoolean needsFullReload = new AtomicBoolean(false);
+
+        List<Future<?>> futures = new ArrayList<>(workers.size());
+        for (ScriptWorker worker : workers) {
+            futures.add(worker.submit(() -> {
+                for (ScriptEntry entry : toEvaluate) {
+                    try {
+                        worker.getContext().eval(entry.source());
+                    } catch (PolyglotException e) {
+                        // top-level let/const/class bindings cannot be declared twice in one context
+                        if (e.isSyntaxError() && e.getMessage() != null && e.getMessage().contains("already been declared")) {
+                            needsFullReload.set(true);
+                        }
+                        if (worker.getId() == 0) {
+                            System.err.println("✗ failed to reload script: " + entry.name() + " - " + e.getMessage());
+                            if (config.isDebugMode()) e.printStackTrace();
+                        }
+                    }
+                }
+                worker.setDispatchTable(ScriptDispatchTable.build(worker.getContext().getBindings("js"), next));
+            }));
+        }
+
+        if (!awaitWorkers(futures, "script reload", LOAD_TIMEOUT_MS)) {
+            return;
+        }
+
+        if (needsFullReload.get()) {
+            System.out.println("incremental reload not possible, reloading all scripts");
+            loadScripts();
+            return;
+        }
+        toEvaluate.forEach(entry -> System.out.println("✓ reloaded script: " + entry.name()));
+        System.out.printf("reloaded %d changed scripts in %d ms%n",
+                toEvaluate.size() + removed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * read a script file and parse its metadata, null if the script is disabled or unreadable
+     */
+    private ScriptEntry readScript(File file) {
+        String scriptName = file.getName();
+        if (config.getDisabledScripts().contains(scriptName)) {
+            System.out.println("skipping disabled script: " + scriptName);
+            return null;
+        }
+
+        try {
+            long lastModified = file.lastModified();
+            long size = file.length();
+            String scriptContent = Files.readString(file.toPath());
+
+            List<ScriptCommand> commands = new ArrayList<>();
+            List<ScriptEventBinding> events = new ArrayList<>();
+            metadataParser.parse(scriptContent, scriptName, commands, events);
+
+            // sources are shared by every context so the engine can reuse parsed code
+            Source source = sourceCache.get(scriptName, scriptContent);
+            return new ScriptEntry(scriptName, lastModified, size, source, List.copyOf(commands), List.copyOf(events));
+        } catch (IOException e) {
+            System.err.println("✗ failed to read script: " + scriptName + " - " + e.getMessage());
+            if (config.isDebugMode()) e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * wait for every worker to finish its task, false if one failed or they did not all finish in time
+     */
+    private boolean awaitWorkers(List<Future<?>> futures, String operation, long timeoutMs) {
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (Future<?> future : futures) {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (TimeoutException e) {
+            System.err.println(operation + " timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println(operation + " interrupted, workers are still finishing in the background");
+        } catch (ExecutionException e) {
+            System.err.println(operation + " failed: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // handle user prefix commands from scripts, completes once the handlers have returned on their worker.
+    // userPrefix is the guild's, for the reply when the command is gone
+    public CompletableFuture<Void> handleUserCommand(MessageReceivedEvent event, String commandName, String args, String userPrefix) {
+        ScriptWorker worker = workerFor(event);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        worker.submit(() -> {
+            try {
+                runUserCommand(worker, event, commandName, args, userPrefix);
+            } finally {
+                done.complete(null);
             }
         });
+        return done;
     }
 
-    // handle mod prefix commands from scripts
-    public void handleModCommand(MessageReceivedEvent event, String commandName, String args) {
-        scriptExecutor.submit(() -> {
-            String key = "mod:" + commandName;
-            List<String> handlers = prefixCommandHandlers.get(key);
+    private void runUserCommand(ScriptWorker worker, MessageReceivedEvent event, String commandName, String args, String userPrefix) {
+        List<ScriptHandler> handlers = worker.getDispatchTable().getCommandHandlers("user:" + commandName);
 
-            if (handlers == null || handlers.isEmpty()) {
-                System.out.println("no script handler found for mod command: " + commandName);
-                ScriptUtils utils = new ScriptUtils();
-                EmbedBuilder embed = utils.createErrorEmbed("command not found",
-                        "the command `" + commandName + "` was not found. use `$help` for available commands.");
-                event.getMessage().replyEmbeds(embed.build()).queue();
-                return;
-            }
+        if (handlers == null) {
+            EmbedBuilder embed = scriptUtils.createErrorEmbed("command not found",
+                    "the command `" + commandName + "` was not found. use `" + userPrefix + "help` for available commands.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
 
-            System.out.println("executing mod command: " + commandName + " with args: " + args);
+        executePrefixCommandHandlers(worker, event, handlers, commandName, args);
+    }
 
-            for (String handlerName : handlers) {
-                executePrefixCommandHandler(event, handlerName, commandName, args);
+    // handle mod prefix commands from scripts, completes once the handlers have returned on their worker
+    public CompletableFuture<Void> handleModCommand(MessageReceivedEvent event, String commandName, String args, String userPrefix) {
+        ScriptWorker worker = workerFor(event);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        worker.submit(() -> {
+            try {
+                runModCommand(worker, event, commandName, args, userPrefix);
+            } finally {
+                done.complete(null);
             }
         });
+        return done;
     }
 
-    private void executePrefixCommandHandler(MessageReceivedEvent event, String handlerName, String commandName, String args) {
-        try {
-            Value handler = context.getBindings("js").getMember(handlerName);
-            if (handler == null || !handler.canExecute()) {
-                System.err.println("handler function missing or invalid: " + handlerName);
-                ScriptUtils utils = new ScriptUtils();
-                EmbedBuilder embed = utils.createErrorEmbed("script error",
-                        "the command handler for `" + commandName + "` is not available.");
-                event.getMessage().replyEmbeds(embed.build()).queue();
-                return;
-            }
+    private void runModCommand(ScriptWorker worker, MessageReceivedEvent event, String commandName, String args, String userPrefix) {
+        List<ScriptHandler> handlers = worker.getDispatchTable().getCommandHandlers("mod:" + commandName);
 
-            ScriptUtils utils = new ScriptUtils();
-            try {
-                // try calling with all utilities
-                handler.execute(event, utils, dbManager, httpUtils, audioManager, scheduler, timeUtils, commandName, args);
-                System.out.println("✓ successfully executed handler: " + handlerName);
-            } catch (PolyglotException e) {
-                // fallback to simpler signature
-                if (e.getMessage().contains("Invalid number of arguments")) {
-                    System.out.println("falling back to simple signature for: " + handlerName);
-                    handler.execute(event, utils, commandName, args);
-                } else {
-                    throw e;
-                }
+        if (handlers == null) {
+            EmbedBuilder embed = scriptUtils.createErrorEmbed("command not found",
+                    "the command `" + commandName + "` was not found. use `" + userPrefix + "help` for available commands.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        executePrefixCommandHandlers(worker, event, handlers, commandName, args);
+    }
+
+    private void executePrefixCommandHandlers(ScriptWorker worker, MessageReceivedEvent event, List<ScriptHandler> handlers, String commandName, String args) {
+        if (handlers.isEmpty()) {
+            // registered in metadata but the function did not resolve when the scripts were loaded
+            System.err.println("handler function missing or invalid for command: " + commandName);
+            EmbedBuilder embed = scriptUtils.createErrorEmbed("script error",
+                    "the command handler for `" + commandName + "` is not available.");
+            event.getMessage().replyEmbeds(embed.build()).queue();
+            return;
+        }
+
+        for (ScriptHandler handler : handlers) {
+            executePrefixCommandHandler(worker, event, handler, commandName, args);
+        }
+    }
+
+    private void executePrefixCommandHandler(ScriptWorker worker, MessageReceivedEvent event, ScriptHandler handler, String commandName, String args) {
+        try {
+            Value result;
+            if (handler.contextSignature()) {
+                result = invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                        ScriptInvocation.forCommand(event, commandName, args), worker.getApi());
+            } else if (handler.usesSimpleCommandSignature()) {
+                result = invoke(worker, handler.name(), handler.function(), handler.timeoutMs(), event, scriptUtils, commandName, args);
+            } else {
+                result = invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                        event, scriptUtils, dbManager, httpUtils, audioManager, scheduler, timeUtils, commandName, args);
             }
+            onRejected(result, message -> reportCommandError(event, handler, message));
         } catch (Exception e) {
-            System.err.println("error executing prefix command handler " + handlerName + ": " + e.getMessage());
             if (config.isDebugMode()) e.printStackTrace();
-
-            ScriptUtils utils = new ScriptUtils();
-            EmbedBuilder embed = utils.createErrorEmbed("execution error",
-                    "an error occurred while executing the command: " + e.getMessage());
-            event.getMessage().replyEmbeds(embed.build()).queue();
+            reportCommandError(event, handler, e.getMessage());
         }
     }
 
+    private void reportCommandError(MessageReceivedEvent event, ScriptHandler handler, String message) {
+        System.err.println("error executing prefix command handler " + handler.name() + ": " + message);
+        EmbedBuilder embed = scriptUtils.createErrorEmbed("execution error",
+                "an error occurred while executing the command: " + message);
+        event.getMessage().replyEmbeds(embed.build()).queue();
+    }
+
+    /**
+     * async handlers return a promise and finish later on their worker - report a rejection like a synchronous failure
+     */
+    private static void onRejected(Value result, Consumer<String> onError) {
+        if (result == null || !result.hasMembers()) return;
+
+        Value then = result.getMember("then");
+        if (then == null || !then.canExecute()) return;
+
+        result.invokeMember("then",
+                (ProxyExecutable) arguments -> null,
+                (ProxyExecutable) arguments -> {
+                    onError.accept(arguments.length > 0 ? arguments[0].toString() : "unknown error");
+                    return null;
+                });
+    }
+
     public void handleLegacySlashCommand(MessageReceivedEvent event) {
         // provide migration message for old slash commands
         event.getMessage().reply("slash commands are deprecated. use prefix commands: `$help`").queue();
     }
 
     public boolean hasEventHandler(String eventType) {
-        return eventHandlers.containsKey(eventType.toUpperCase(Locale.ROOT));
+        return registry.hasEventHandler(eventType.toUpperCase(Locale.ROOT));
     }
 
-    public void executeEventHandler(String eventType, GenericEvent event) {
-        scriptExecutor.submit(() -> {
-            List<String> handlers = eventHandlers.get(eventType.toUpperCase(Locale.ROOT));
-            if (handlers == null) return;
+    /**
+     * the metadata index of the currently loaded scripts
+     */
+    public ScriptRegistry getRegistry() {
+        return registry;
+    }
 
-            handlers.forEach(handlerName -> {
-                try {
-                    ScriptUtils utils = new ScriptUtils();
-                    context.getBindings("js").getMember(handlerName)
-                            .execute(event, utils, dbManager, httpUtils, audioManager, scheduler, timeUtils);
-                } catch (Exception e) {
-                    System.err.println("error in event handler " + handlerName + ": " + e.getMessage());
-                    if (config.isDebugMode()) e.printStackTrace();
-                }
-            });
+    /**
+     * run the handlers bound to an event on its worker. completes once they have run (async handlers may still be pending)
+     */
+    public CompletableFuture<Void> executeEventHandler(String eventType, GenericEvent event) {
+        List<ScriptEventBinding> bindings = registry.getEventBindings(eventType.toUpperCase(Locale.ROOT));
+        List<ScriptEventBinding> matched = batchOrMatch(matchingBindings(bindings, event), event);
+        if (matched.isEmpty()) return CompletableFuture.completedFuture(null); // nothing wants it, don't cross into the worker at all
+
+        ScriptWorker worker = workerFor(event);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        worker.submit(() -> {
+            try {
+                runEventHandlers(worker, matched, event);
+            } finally {
+                done.complete(null);
+            }
         });
+        return done;
+    }
+
+    private void runEventHandlers(ScriptWorker worker, List<ScriptEventBinding> matched, GenericEvent event) {
+        ScriptDispatchTable table = worker.getDispatchTable();
+        for (ScriptEventBinding binding : matched) {
+            ScriptHandler handler = table.getFunction(binding.handler());
+            if (handler == null) continue;
+
+            try {
+                Value result = handler.contextSignature()
+                        ? invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                                ScriptInvocation.forEvent(event), worker.getApi())
+                        : invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                                event, scriptUtils, dbManager, httpUtils, audioManager, scheduler, timeUtils);
+                onRejected(result, message -> System.err.println("error in event handler " + handler.name() + ": " + message));
+            } catch (Exception e) {
+                System.err.println("error in event handler " + handler.name() + ": " + e.getMessage());
+                if (config.isDebugMode()) e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * hand events for batched handlers to the batcher and return the bindings that run right away
+     */
+    private List<ScriptEventBinding> batchOrMatch(List<ScriptEventBinding> matched, GenericEvent event) {
+        List<ScriptEventBinding> immediate = null;
+        for (int i = 0; i < matched.size(); i++) {
+            ScriptEventBinding binding = matched.get(i);
+            boolean batched = binding.batch() != null;
+            if (batched) {
+                long routingKey = routingKey(event);
+                batcher.add(binding, routingKey, event, events -> executeBatchHandler(binding, routingKey, events));
+            }
+            if (immediate == null && batched) {
+                immediate = new ArrayList<>(matched.subList(0, i));
+            } else if (immediate != null && !batched) {
+                immediate.add(binding);
+            }
+        }
+        return immediate != null ? immediate : matched;
+    }
+
+    /**
+     * run a batched handler once for a whole batch of events from one guild
+     */
+    private void executeBatchHandler(ScriptEventBinding binding, long routingKey, List<GenericEvent> events) {
+        ScriptWorker worker = workerFor(routingKey);
+        worker.submit(() -> {
+            ScriptHandler handler = worker.getDispatchTable().getFunction(binding.handler());
+            if (handler == null) return;
+
+            try {
+                ProxyArray batch = ProxyArray.fromList(new ArrayList<>(events));
+                Value result = handler.contextSignature()
+                        ? invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                                ScriptInvocation.forBatch(batch), worker.getApi())
+                        : invoke(worker, handler.name(), handler.function(), handler.timeoutMs(),
+                                batch, scriptUtils, dbManager, httpUtils, audioManager, scheduler, timeUtils);
+                onRejected(result, message -> System.err.println("error in event handler " + handler.name() + ": " + message));
+            } catch (Exception e) {
+                System.err.println("error in event handler " + handler.name() + ": " + e.getMessage());
+                if (config.isDebugMode()) e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * apply the metadata filters on the calling thread. returns the input list itself when everything matches
+     */
+    private static List<ScriptEventBinding> matchingBindings(List<ScriptEventBinding> bindings, GenericEvent event) {
+        List<ScriptEventBinding> matched = null;
+        for (int i = 0; i < bindings.size(); i++) {
+            boolean accepted = bindings.get(i).accepts(event);
+            if (matched == null && !accepted) {
+                matched = new ArrayList<>(bindings.subList(0, i));
+            } else if (matched != null && accepted) {
+                matched.add(bindings.get(i));
+            }
+        }
+        return matched != null ? matched : bindings;
     }
 
     public void executeScheduledTask(String scriptFileName, String handlerName, JDA jda) {
-        scriptExecutor.submit(() -> {
+        ScriptWorker worker = workerFor(handlerName.hashCode());
+        worker.submit(() -> {
             try {
-                ScriptUtils utils = new ScriptUtils();
-                context.getBindings("js").getMember(handlerName)
-                        .execute(jda, utils, dbManager, httpUtils, audioManager, scheduler, timeUtils);
+                ScriptHandler handler = worker.getDispatchTable().getFunction(handlerName);
+                Value function = handler != null
+                        ? handler.function()
+                        : worker.getContext().getBindings("js").getMember(handlerName); // not referenced by metadata
+                long timeoutMs = handler != null ? handler.timeoutMs() : 0L;
+                Value result = handler != null && handler.contextSignature()
+                        ? invoke(worker, handlerName, function, timeoutMs, ScriptInvocation.forScheduledTask(jda), worker.getApi())
+                        : invoke(worker, handlerName, function, timeoutMs, jda, scriptUtils, dbManager, httpUtils, audioManager, scheduler, timeUtils);
+                onRejected(result, message -> System.err.println("error in scheduled task " + handlerName + ": " + message));
             } catch (Exception e) {
                 System.err.println("error in scheduled task " + handlerName + ": " + e.getMessage());
                 if (config.isDebugMode()) e.printStackTrace();
@@ -275,33 +748,206 @@ public class ScriptManager {
         });
     }
 
-    private void initializeContext() {
-        if (context != null) {
-            context.close();
+    /**
+     * run a handler on the current worker thread under its time budget and record how long it took.
+     * the watchdog interrupts the context if the handler overruns, the caller sees a ScriptTimeoutException
+     */
+    private Value invoke(ScriptWorker worker, String handlerName, Value function, long timeoutMs, Object... args) {
+        return execute(worker, handlerName, function, timeoutMs, metrics.forHandler(handlerName), args);
+    }
+
+    /**
+     * invoke without the metrics lookup, stats may be null to leave the handler's statistics untouched
+     */
+    private Value execute(ScriptWorker worker, String handlerName, Value function, long timeoutMs, HandlerStats stats, Object... args) {
+        long budgetMs = timeoutMs > 0 ? timeoutMs : config.getScriptHandlerTimeoutMs();
+        if (resourceLimits != null) {
+            worker.getContext().resetLimits(); // the statement limit counts per invocation, not per context lifetime
         }
 
-        context = Context.newBuilder("js")
-                .allowHostAccess(HostAccess.ALL)
-                .allowHostClassLookup(s -> true)
-                .allowIO(IOAccess.ALL)
-                .allowAllAccess(config.isEnableJsConsoleAccess())
-                .option("js.ecmascript-version", "2022")
-                .build();
+        long invocation = worker.beginInvocation(handlerName, timeoutMs);
+        ScheduledFuture<?> overrun = budgetMs > 0
+                ? watchdog.schedule(() -> interruptOverrun(worker, invocation, handlerName, budgetMs), budgetMs, TimeUnit.MILLISECONDS)
+                : null;
+        long startNanos = System.nanoTime();
+        long startCpu = stats != null ? cpuTimeNanos() : -1L;
+        boolean failed = true;
+        boolean timedOut = false;
+        try {
+            Value result = function.execute(args);
+            failed = false;
+            return result;
+        } catch (PolyglotException e) {
+            if (e.isCancelled() || e.isResourceExhausted()) {
+                // the context is gone, scripts have to be evaluated into a new one
+                timedOut = !e.isResourceExhausted();
+                restoreWorker(worker);
+                throw e.isResourceExhausted() ? e : new ScriptTimeoutException(handlerName, budgetMs);
+            }
+            if (e.isInterrupted()) {
+                timedOut = true;
+                throw new ScriptTimeoutException(handlerName, budgetMs);
+            }
+            throw e;
+        } finally {
+            if (overrun != null) overrun.cancel(false);
+            worker.endInvocation();
+            if (stats != null) {
+                long cpu = startCpu >= 0 ? cpuTimeNanos() - startCpu : -1L;
+                stats.record(System.nanoTime() - startNanos, cpu, worker.queueWaitNanos(startNanos), failed, timedOut);
+            }
+        }
     }
 
-    public void shutdown() {
-        scriptExecutor.shutdown();
+    /**
+     * cpu time of the current thread, -1 where the jvm does not measure it
+     */
+    private static long cpuTimeNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1L;
+    }
+
+    /**
+     * runs on the watchdog thread. if the handler is still the one running on the worker, hand the interrupt to
+     * the interrupter pool - waiting for it here would hold back every other worker's budget timer
+     */
+    private void interruptOverrun(ScriptWorker worker, long invocation, String handlerName, long budgetMs) {
+        if (worker.getRunningInvocation() != invocation) return;
+
+        System.err.println("script handler " + handlerName + " exceeded its time budget of " + budgetMs
+                + " ms on script-worker-" + worker.getId() + ", interrupting");
+        try {
+            interrupter.execute(() -> stopOverrun(worker, invocation, handlerName));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * interrupt the handler and cancel the whole context if it does not stop in time
+     */
+    private void stopOverrun(ScriptWorker worker, long invocation, String handlerName) {
+        try {
+            worker.getContext().interrupt(Duration.ofSeconds(5));
+        } catch (TimeoutException e) {
+            if (worker.getRunningInvocation() != invocation) return; // stopped just as the wait ran out
+            // stuck somewhere interrupts don't reach, e.g. in host code
+            System.err.println("script handler " + handlerName + " did not stop after interrupt, cancelling its context");
+            worker.getContext().close(true);
+        } catch (IllegalStateException e) {
+            // context was replaced in the meantime
+        }
+    }
+
+    /**
+     * re-evaluate all scripts into a fresh context after the previous one was cancelled
+     */
+    private void restoreWorker(ScriptWorker worker) {
+        System.err.println("restoring script context of script-worker-" + worker.getId());
+        initializeWorker(worker, registry, new HashMap<>());
+    }
+
+    /**
+     * per-handler execution statistics
+     */
+    public ScriptMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * the caches, maps and counters scripts keep their hot state in
+     */
+    public ScriptStore getStore() {
+        return store;
+    }
+
+    /**
+     * on-demand cpu sampling of the script code
+     */
+    public ScriptProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * globals every script can use regardless of handler signature. the api object is built here once per context
+     * and reused by every context-signature call
+     */
+    private void installGlobals(ScriptWorker worker) {
+        if (worker.getContext() == null) return; // scripts were never loaded
+
+        ScriptAsyncBridge asyncBridge = new ScriptAsyncBridge(worker, dbManager, httpUtils, this::invoke);
+        ScriptApi api = new ScriptApi(scriptUtils, dbManager, httpUtils, audioManager, scheduler, timeUtils, asyncBridge, store);
+        worker.setApi(api);
+
+        Value bindings = worker.getContext().getBindings("js");
+        bindings.putMember("asyncUtils", asyncBridge);
+        bindings.putMember("store", store);
+        bindings.putMember("api", api);
+    }
+
+    /**
+     * build the engine shared by all contexts. when the graalvm runtime supports auxiliary engine caching
+     * the compiled code is persisted under the data directory and loaded again on the next start
+     */
+    private Engine createEngine() {
+        if (!config.isEnableScriptCodeCache()) {
+            return Engine.create();
+        }
+
+        Path cacheFile = Paths.get(config.getDatabasePath()).toAbsolutePath().getParent().resolve("script-code.cache");
         try {
-            if (!scriptExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                scriptExecutor.shutdownNow();
+            Engine.Builder builder = Engine.newBuilder()
+                    .option("engine.CacheStore", cacheFile.toString());
+            if (Files.isRegularFile(cacheFile)) {
+                builder.option("engine.CacheLoad", cacheFile.toString());
             }
-        } catch (InterruptedException e) {
-            scriptExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
+            Engine cachedEngine = builder.build();
+            System.out.println("script code cache enabled: " + cacheFile);
+            return cachedEngine;
+        } catch (IllegalArgumentException e) {
+            // engine caching is only available on some graalvm runtimes
+            System.out.println("persistent script code cache not supported by this graalvm runtime, using in-memory cache only");
+            return Engine.create();
         }
+    }
 
-        if (context != null) {
-            context.close();
+    /**
+     * pick the worker for an event - everything from one guild lands on the same worker so per-guild ordering holds
+     */
+    private ScriptWorker workerFor(GenericEvent event) {
+        return workerFor(routingKey(event));
+    }
+
+    /**
+     * the guild an event belongs to, the channel for direct messages, 0 for events outside any guild
+     */
+    private static long routingKey(GenericEvent event) {
+        if (event instanceof MessageReceivedEvent messageEvent) {
+            return messageEvent.isFromGuild()
+                    ? messageEvent.getGuild().getIdLong()
+                    : messageEvent.getChannel().getIdLong();
+        }
+        if (event instanceof GenericGuildEvent guildEvent) {
+            return guildEvent.getGuild().getIdLong();
+        }
+        return 0L;
+    }
+
+    private ScriptWorker workerFor(long key) {
+        // spread snowflakes, their low bits are mostly sequence counters
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return workers.get((int) Math.floorMod(mixed ^ (mixed >>> 32), (long) workers.size()));
+    }
+
+    public void shutdown() {
+        if (hotReloader != null) {
+            hotReloader.stop();
+        }
+        watchdog.shutdownNow();
+        interrupter.shutdownNow();
+        batcher.shutdown();
+        for (ScriptWorker worker : workers) {
+            worker.shutdown();
         }
+        engine.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package xyz.plavpixel.mycelium.script;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * parses the json metadata block at the top of a script
+ */
+public class ScriptMetadataParser {
+    private static final Pattern METADATA_PATTERN = Pattern.compile("/\\*\\*([\\s\\S]*?)\\*/");
+
+    private final ObjectMapper jsonMapper;
+
+    public ScriptMetadataParser() {
+        this.jsonMapper = new ObjectMapper();
+    }
+
+    /**
+     * parse the metadata of a script, adding its declarations to the given lists
+     */
+    public void parse(String scriptContent, String scriptName, List<ScriptCommand> commands, List<ScriptEventBinding> events) {
+        Matcher matcher = METADATA_PATTERN.matcher(scriptContent);
+        if (!matcher.find()) return;
+
+        String json = matcher.group(1).trim();
+        try {
+            List<Map<String, Object>> definitions = jsonMapper.readValue(json, new TypeReference<>() {});
+            System.out.println("parsing metadata from " + scriptName + " - found " + definitions.size() + " definitions");
+
+            for (Map<String, Object> def : definitions) {
+                // event handlers
+                if (def.containsKey("event") && def.containsKey("handler")) {
+                    String eventType = ((String) def.get("event")).toUpperCase(Locale.ROOT);
+                    String handlerName = (String) def.get("handler");
+
+                    EventFilter filter;
+                    EventBatch batch;
+                    try {
+                        filter = parseFilter(def.get("filter"));
+                        batch = parseBatch(def.get("batch"));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("  - skipped event handler " + handlerName + " in " + scriptName + ", bad metadata: " + e.getMessage());
+                        continue;
+                    }
+
+                    events.add(new ScriptEventBinding(scriptName, eventType, handlerName, filter, parseTimeout(def), usesContextSignature(def),
+                            batch));
+                    System.out.println("  - registered event handler: " + eventType + " -> " + handlerName
+                            + (filter != null ? " (filtered)" : "")
+                            + (batch != null ? " (batched every " + batch.windowMs() + " ms)" : ""));
+                }
+                // prefix commands
+                else if (def.containsKey("prefix") && def.containsKey("handler") && def.containsKey("name")) {
+                    String prefixType = (String) def.get("prefix");
+                    String commandName = (String) def.get("name");
+                    String handlerName = (String) def.get("handler");
+                    String description = (String) def.get("description");
+
+                    List<String> aliases = parseAliases(def.get("aliases"));
+                    commands.add(new ScriptCommand(scriptName, prefixType, commandName, handlerName, description, parseTimeout(def),
+                            usesContextSignature(def), usesSimpleSignature(def), aliases));
+                    System.out.println("  - registered prefix command: " + prefixType + ":" + commandName + " -> " + handlerName
+                            + (aliases.isEmpty() ? "" : " (aliases " + String.join(", ", aliases) + ")"));
+                }
+            }
+        } catch (JsonProcessingException | ClassCastException e) {
+            System.err.println("error parsing metadata in " + scriptName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * optional per-handler time budget, 0 means the configured default
+     */
+    private static long parseTimeout(Map<String, Object> def) {
+        return def.get("timeoutMs") instanceof Number timeout ? Math.max(0L, timeout.longValue()) : 0L;
+    }
+
+    /**
+     * "signature": "context" makes the handler take (ctx, api) instead of the positional arguments
+     */
+    private static boolean usesContextSignature(Map<String, Object> def) {
+        return "context".equals(def.get("signature"));
+    }
+
+    /**
+     * "signature": "simple" makes a command handler take (event, utils, commandName, args).
+     * without it commands get the full positional argument list, whatever the function declares
+     */
+    private static boolean usesSimpleSignature(Map<String, Object> def) {
+        return "simple".equals(def.get("signature"));
+    }
+
+    /**
+     * "aliases": ["h", "commands"] - other names the command answers to
+     */
+    private static List<String> parseAliases(Object aliases) {
+        if (!(aliases instanceof List<?> names)) return List.of();
+        return names.stream()
+                .filter(String.class::isInstance)
+                .map(String.class::cast)
+                .filter(name -> !name.isBlank())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventBatch parseBatch(Object batch) {
+        if (batch == null) return null;
+        if (!(batch instanceof Map<?, ?> definition)) {
+            throw new IllegalArgumentException("batch must be an object");
+        }
+        return EventBatch.parse((Map<String, Object>) definition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventFilter parseFilter(Object filter) {
+        if (filter == null) return null;
+        if (!(filter instanceof Map<?, ?> definition)) {
+            throw new IllegalArgumentException("filter must be an object");
+        }
+        return EventFilter.compile((Map<String, Object>) definition);
+    }
+}
@@ -0,0 +1,21 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * per-handler execution statistics for every script worker
+ */
+public class ScriptMetrics {
+    private final Map<String, HandlerStats> handlers = new ConcurrentHashMap<>();
+
+    public HandlerStats forHandler(String handlerName) {
+        return handlers.computeIfAbsent(handlerName, HandlerStats::new);
+    }
+
+    public List<HandlerStats> snapshot() {
+        return new ArrayList<>(handlers.values());
+    }
+}
@@ -0,0 +1,110 @@
+package xyz.plavpixel.mycelium.script;
+
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.tools.profiler.CPUSampler;
+import com.oracle.truffle.tools.profiler.CPUSamplerData;
+import com.oracle.truffle.tools.profiler.ProfilerNode;
+import org.graalvm.polyglot.Engine;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * on-demand sampling of the javascript running in the shared engine, built on graalvm's cpu sampler.
+ * the sampler is only collecting while a profile is being taken, so it costs nothing the rest of the time
+ */
+public class ScriptProfiler {
+    private final Engine engine;
+    private final AtomicBoolean sampling = new AtomicBoolean(false);
+
+    public ScriptProfiler(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * a script function and how many samples hit it. self counts samples inside the function itself,
+     * total also those in functions it called
+     */
+    public record HotFunction(String name, String location, long selfSamples, long totalSamples) {
+    }
+
+    /**
+     * the result of one sampling run, functions sorted by self samples
+     */
+    public record Profile(long samples, List<HotFunction> functions) {
+    }
+
+    /**
+     * sample every context for the given time and complete with the hottest functions
+     */
+    public CompletableFuture<Profile> sample(long seconds, int limit) {
+        CPUSampler sampler = CPUSampler.find(engine);
+        if (sampler == null) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("the graalvm cpu sampler is not available"));
+        }
+        if (!sampling.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("a profile is already being taken"));
+        }
+
+        sampler.clearData();
+        sampler.setCollecting(true);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                sampler.setCollecting(false);
+                return collect(sampler, limit);
+            } finally {
+                sampler.clearData();
+                sampling.set(false);
+            }
+        }, CompletableFuture.delayedExecutor(seconds, TimeUnit.SECONDS));
+    }
+
+    public boolean isSampling() {
+        return sampling.get();
+    }
+
+    private static Profile collect(CPUSampler sampler, int limit) {
+        Map<String, long[]> hits = new HashMap<>(); // name + location -> {self, total}
+        Map<String, HotFunction> names = new HashMap<>();
+        long samples = 0;
+        for (CPUSamplerData data : sampler.getData().values()) {
+            samples += data.getSamples();
+            for (Collection<ProfilerNode<CPUSampler.Payload>> roots : data.getThreadData().values()) {
+                addAll(roots, hits, names);
+            }
+        }
+
+        List<HotFunction> functions = hits.entrySet().stream()
+                .map(entry -> {
+                    HotFunction function = names.get(entry.getKey());
+                    return new HotFunction(function.name(), function.location(), entry.getValue()[0], entry.getValue()[1]);
+                })
+                .sorted(Comparator.comparingLong(HotFunction::selfSamples).reversed())
+                .limit(limit)
+                .toList();
+        return new Profile(samples, functions);
+    }
+
+    private static void addAll(Collection<ProfilerNode<CPUSampler.Payload>> nodes, Map<String, long[]> hits, Map<String, HotFunction> names) {
+        for (ProfilerNode<CPUSampler.Payload> node : nodes) {
+            String name = node.getRootName() != null ? node.getRootName() : "<anonymous>";
+            SourceSection section = node.getSourceSection();
+            String location = section != null && section.getSource() != null
+                    ? section.getSource().getName() + ":" + section.getStartLine()
+                    : "<unknown>";
+            String key = name + "@" + location;
+
+            names.putIfAbsent(key, new HotFunction(name, location, 0L, 0L));
+            long[] counts = hits.computeIfAbsent(key, k -> new long[2]);
+            counts[0] += node.getPayload().getSelfHitCount();
+            counts[1] += node.getPayload().getHitCount(); // recursive calls count more than once
+            addAll(node.getChildren(), hits, names);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * a java future that scripts can await. graaljs treats any object with a then(resolve, reject) member as a thenable,
+ * and the callbacks are always run back on the worker that owns the awaiting context.
+ * the code after an await runs under the budget and statistics of the handler that awaited
+ */
+public class ScriptPromise {
+    private static final String UNKNOWN_HANDLER = "async-continuation";
+
+    private final CompletableFuture<?> future;
+    private final ScriptWorker worker;
+    private final ScriptInvoker invoker;
+
+    ScriptPromise(CompletableFuture<?> future, ScriptWorker worker, ScriptInvoker invoker) {
+        this.future = future;
+        this.worker = worker;
+        this.invoker = invoker;
+    }
+
+    public void then(Value onResolve, Value onReject) {
+        // called on the worker while the awaiting handler runs
+        String handler = worker.getRunningHandler() != null ? worker.getRunningHandler() : UNKNOWN_HANDLER;
+        long timeoutMs = worker.getRunningHandler() != null ? worker.getRunningTimeoutMs() : 0L;
+        future.whenComplete((result, error) -> worker.submit(() -> {
+            try {
+                settle(handler, timeoutMs, onResolve, onReject, result, error);
+            } catch (ScriptTimeoutException | PolyglotException e) {
+                System.err.println("error in async continuation of " + handler + ": " + e.getMessage());
+            } catch (IllegalStateException e) {
+                // the context was replaced by a reload while the work was in flight
+                System.err.println("dropped async script result, context is closed: " + e.getMessage());
+            }
+        }));
+    }
+
+    private void settle(String handler, long timeoutMs, Value onResolve, Value onReject, Object result, Throwable error) {
+        if (error == null) {
+            if (onResolve != null && onResolve.canExecute()) {
+                invoker.invoke(worker, handler, onResolve, timeoutMs, result);
+            }
+            return;
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (onReject != null && onReject.canExecute()) {
+            invoker.invoke(worker, handler, onReject, timeoutMs, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        } else {
+            System.err.println("unhandled async script error: " + cause.getMessage());
+        }
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+}
@@ -0,0 +1,149 @@
+package xyz.plavpixel.mycelium.script;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * immutable index of every loaded script and what its metadata declared.
+ * built once per load and shared by the script and command managers
+ */
+public final class ScriptRegistry {
+    public static final ScriptRegistry EMPTY = new ScriptRegistry(Map.of());
+
+    private final Map<String, ScriptEntry> entries;
+    private final List<ScriptCommand> commands;
+    private final Map<String, List<ScriptEventBinding>> eventBindings;
+    private final Map<String, List<String>> eventHandlerNames;
+    private final Map<String, List<String>> commandHandlerNames;
+    private final Map<String, Long> timeouts;
+    private final Set<String> contextHandlers;
+    private final Set<String> simpleHandlers;
+
+    public ScriptRegistry(Map<String, ScriptEntry> entries) {
+        this.entries = Collections.unmodifiableMap(new TreeMap<>(entries));
+
+        List<ScriptCommand> allCommands = new ArrayList<>();
+        Map<String, List<ScriptEventBinding>> bindings = new HashMap<>();
+        Map<String, List<String>> events = new HashMap<>();
+        Map<String, List<String>> commandHandlers = new HashMap<>();
+        Map<String, Long> handlerTimeouts = new HashMap<>();
+        Set<String> contextSignatureHandlers = new HashSet<>();
+        Set<String> simpleSignatureHandlers = new HashSet<>();
+        for (ScriptEntry entry : this.entries.values()) {
+            for (ScriptEventBinding binding : entry.events()) {
+                bindings.computeIfAbsent(binding.eventType(), k -> new ArrayList<>()).add(binding);
+                events.computeIfAbsent(binding.eventType(), k -> new ArrayList<>()).add(binding.handler());
+                if (binding.timeoutMs() > 0) handlerTimeouts.merge(binding.handler(), binding.timeoutMs(), Math::max);
+                if (binding.contextSignature()) contextSignatureHandlers.add(binding.handler());
+            }
+            for (ScriptCommand command : entry.commands()) {
+                allCommands.add(command);
+                commandHandlers.computeIfAbsent(command.key(), k -> new ArrayList<>()).add(command.handler());
+                if (command.timeoutMs() > 0) handlerTimeouts.merge(command.handler(), command.timeoutMs(), Math::max);
+                if (command.contextSignature()) contextSignatureHandlers.add(command.handler());
+                if (command.simpleSignature()) simpleSignatureHandlers.add(command.handler());
+            }
+        }
+        this.timeouts = Map.copyOf(handlerTimeouts);
+        this.contextHandlers = Set.copyOf(contextSignatureHandlers);
+        this.simpleHandlers = Set.copyOf(simpleSignatureHandlers);
+
+        this.commands = List.copyOf(allCommands);
+        Map<String, List<ScriptEventBinding>> bindingsCopy = new HashMap<>();
+        bindings.forEach((type, list) -> bindingsCopy.put(type, List.copyOf(list)));
+        this.eventBindings = Map.copyOf(bindingsCopy);
+        this.eventHandlerNames = copyOf(events);
+        this.commandHandlerNames = copyOf(commandHandlers);
+    }
+
+    private static Map<String, List<String>> copyOf(Map<String, List<String>> handlers) {
+        Map<String, List<String>> copy = new HashMap<>();
+        handlers.forEach((key, names) -> copy.put(key, List.copyOf(names)));
+        return Map.copyOf(copy);
+    }
+
+    /**
+     * a copy of this registry with the given entries replaced and the named scripts removed
+     */
+    public ScriptRegistry with(Collection<ScriptEntry> updated, Collection<String> removed) {
+        Map<String, ScriptEntry> next = new TreeMap<>(entries);
+        removed.forEach(next::remove);
+        updated.forEach(entry -> next.put(entry.name(), entry));
+        return new ScriptRegistry(next);
+    }
+
+    public ScriptEntry getEntry(String scriptName) {
+        return entries.get(scriptName);
+    }
+
+    /**
+     * all entries in evaluation order
+     */
+    public Collection<ScriptEntry> getEntries() {
+        return entries.values();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * every prefix command declared by a loaded script
+     */
+    public List<ScriptCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * the bindings for an event type in evaluation order, empty if none
+     */
+    public List<ScriptEventBinding> getEventBindings(String eventType) {
+        return eventBindings.getOrDefault(eventType, List.of());
+    }
+
+    /**
+     * event type -> handler function names
+     */
+    public Map<String, List<String>> getEventHandlerNames() {
+        return eventHandlerNames;
+    }
+
+    /**
+     * "prefix:name" -> handler function names
+     */
+    public Map<String, List<String>> getCommandHandlerNames() {
+        return commandHandlerNames;
+    }
+
+    /**
+     * the time budget declared for a handler function, 0 if none. the largest wins if several bindings declare one
+     */
+    public long getTimeoutMs(String handlerName) {
+        return timeouts.getOrDefault(handlerName, 0L);
+    }
+
+    /**
+     * whether a handler function was declared with the (ctx, api) signature
+     */
+    public boolean usesContextSignature(String handlerName) {
+        return contextHandlers.contains(handlerName);
+    }
+
+    /**
+     * whether a command handler function was declared with "signature": "simple"
+     */
+    public boolean usesSimpleSignature(String handlerName) {
+        return simpleHandlers.contains(handlerName);
+    }
+
+    public boolean hasEventHandler(String eventType) {
+        return eventHandlerNames.containsKey(eventType);
+    }
+}
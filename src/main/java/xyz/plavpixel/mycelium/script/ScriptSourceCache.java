@@ -0,0 +1,54 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Source;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * keeps one polyglot source per script content hash.
+ * handing the engine the same source instance across reloads and contexts lets it reuse parsed and compiled code
+ */
+public class ScriptSourceCache {
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+
+    /**
+     * the cached source for this content, built on first use
+     */
+    public Source get(String scriptName, String content) {
+        String hash = hash(content);
+        Source cached = sources.get(hash);
+        if (cached != null && cached.getName().equals(scriptName)) {
+            return cached;
+        }
+
+        Source source = Source.newBuilder("js", content, scriptName).cached(true).buildLiteral();
+        sources.put(hash, source);
+        return source;
+    }
+
+    /**
+     * drop every source that is not in the given set, called after a load so old revisions don't pile up
+     */
+    public void retainAll(Collection<Source> inUse) {
+        sources.values().retainAll(inUse);
+    }
+
+    public int size() {
+        return sources.size();
+    }
+
+    public static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("sha-256 not available", e);
+        }
+    }
+}
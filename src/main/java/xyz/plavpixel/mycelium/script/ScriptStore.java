@@ -0,0 +1,66 @@
+package xyz.plavpixel.mycelium.script;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * hot state for scripts kept on the java side, exposed as the global "store" and as api.store.
+ * everything is created on first use by name and shared by all workers, so scripts can keep counters and
+ * lookups without a database round trip or a large object in every context
+ */
+public class ScriptStore {
+    public static final long DEFAULT_CACHE_SIZE = 10_000;
+
+    private final Map<String, ScriptCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, LongCounterMap> longMaps = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * a cache without expiry holding up to DEFAULT_CACHE_SIZE entries
+     */
+    public ScriptCache cache(String name) {
+        return cache(name, 0L, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * a cache whose entries expire ttlSeconds after they were written (0 = never) and that evicts the least
+     * valuable entries beyond maxSize. the settings only apply when the cache is first created
+     */
+    public ScriptCache cache(String name, long ttlSeconds, long maxSize) {
+        return caches.computeIfAbsent(name, key -> {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .maximumSize(maxSize > 0 ? maxSize : DEFAULT_CACHE_SIZE)
+                    .recordStats();
+            if (ttlSeconds > 0) {
+                builder.expireAfterWrite(Duration.ofSeconds(ttlSeconds));
+            }
+            return new ScriptCache(key, builder.build());
+        });
+    }
+
+    public LongCounterMap longMap(String name) {
+        return longMaps.computeIfAbsent(name, LongCounterMap::new);
+    }
+
+    public AtomicLong counter(String name) {
+        return counters.computeIfAbsent(name, key -> new AtomicLong());
+    }
+
+    public List<ScriptCache> getCaches() {
+        return new ArrayList<>(caches.values());
+    }
+
+    public List<LongCounterMap> getLongMaps() {
+        return new ArrayList<>(longMaps.values());
+    }
+
+    public Map<String, AtomicLong> getCounters() {
+        return Map.copyOf(counters);
+    }
+}
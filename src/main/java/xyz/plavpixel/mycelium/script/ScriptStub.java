@@ -0,0 +1,43 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+/**
+ * a stand-in that has every member and can be called, each returning the stub again.
+ * warm-up passes it instead of events and services, so replies, queries and queue() calls go nowhere
+ */
+public final class ScriptStub implements ProxyObject, ProxyExecutable {
+    public static final ScriptStub INSTANCE = new ScriptStub();
+
+    private static final String[] NO_KEYS = {};
+
+    private ScriptStub() {
+    }
+
+    @Override
+    public Object execute(Value... arguments) {
+        return this;
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return this;
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return NO_KEYS;
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return true;
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        // writes are dropped
+    }
+}
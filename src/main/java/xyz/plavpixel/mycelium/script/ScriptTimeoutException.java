@@ -0,0 +1,10 @@
+package xyz.plavpixel.mycelium.script;
+
+/**
+ * thrown when a script handler ran past its time budget and was interrupted
+ */
+public class ScriptTimeoutException extends RuntimeException {
+    public ScriptTimeoutException(String handlerName, long budgetMs) {
+        super("handler " + handlerName + " exceeded its time budget of " + budgetMs + " ms and was cancelled");
+    }
+}
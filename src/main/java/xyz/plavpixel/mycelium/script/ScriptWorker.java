@@ -0,0 +1,167 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.io.IOAccess;
+import xyz.plavpixel.mycelium.config.BotConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one script execution lane - a graalvm context owned by a single thread.
+ * contexts are not thread safe, so everything touching the context has to go through submit()
+ */
+public class ScriptWorker {
+    private final int id;
+    private final ExecutorService executor;
+    private volatile Context context;
+    private volatile ScriptDispatchTable dispatchTable = ScriptDispatchTable.EMPTY;
+    private volatile ScriptApi api;
+    // sequence number of the handler currently running, 0 when idle. read by the watchdog
+    private volatile long runningInvocation;
+    private long invocationCounter;
+    // the handler now running and its declared budget, worker thread only. async continuations inherit them
+    private String runningHandler;
+    private long runningTimeoutMs;
+    // when the task now running on the worker thread was submitted
+    private long taskSubmittedNanos;
+
+    public ScriptWorker(int id) {
+        this.id = id;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "script-worker-" + id);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Future<?> submit(Runnable task) {
+        long submittedNanos = System.nanoTime();
+        return executor.submit(() -> {
+            taskSubmittedNanos = submittedNanos;
+            task.run();
+        });
+    }
+
+    /**
+     * how long the running task waited before the given moment, including handlers run before it in the same task.
+     * must be called on the worker thread
+     */
+    public long queueWaitNanos(long nowNanos) {
+        return Math.max(0L, nowNanos - taskSubmittedNanos);
+    }
+
+    /**
+     * the context of this worker. only the worker thread may execute in it, other threads may only interrupt or close it
+     */
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * the handlers resolved against the current context
+     */
+    public ScriptDispatchTable getDispatchTable() {
+        return dispatchTable;
+    }
+
+    public void setDispatchTable(ScriptDispatchTable dispatchTable) {
+        this.dispatchTable = dispatchTable;
+    }
+
+    /**
+     * the service object installed into the current context
+     */
+    public ScriptApi getApi() {
+        return api;
+    }
+
+    public void setApi(ScriptApi api) {
+        this.api = api;
+    }
+
+    /**
+     * mark the start of a handler invocation on the worker thread, returns its sequence number
+     */
+    public long beginInvocation(String handlerName, long timeoutMs) {
+        runningHandler = handlerName;
+        runningTimeoutMs = timeoutMs;
+        runningInvocation = ++invocationCounter;
+        return runningInvocation;
+    }
+
+    public void endInvocation() {
+        runningInvocation = 0L;
+        runningHandler = null;
+    }
+
+    /**
+     * the handler running on the worker thread, null when idle. must be called on the worker thread
+     */
+    public String getRunningHandler() {
+        return runningHandler;
+    }
+
+    public long getRunningTimeoutMs() {
+        return runningTimeoutMs;
+    }
+
+    public long getRunningInvocation() {
+        return runningInvocation;
+    }
+
+    /**
+     * replaces the current context with a fresh one attached to the shared engine.
+     * must be called on the worker thread
+     */
+    public void resetContext(Engine engine, BotConfig config, ResourceLimits limits) {
+        closeContext();
+
+        dispatchTable = ScriptDispatchTable.EMPTY;
+        Context.Builder builder = Context.newBuilder("js")
+                .engine(engine)
+                .allowHostAccess(HostAccess.ALL)
+                .allowHostClassLookup(s -> true)
+                .allowIO(IOAccess.ALL)
+                .allowAllAccess(config.isEnableJsConsoleAccess())
+                .option("js.ecmascript-version", "2022");
+        if (limits != null) {
+            builder.resourceLimits(limits);
+        }
+        context = builder.build();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        closeContext();
+    }
+
+    private void closeContext() {
+        if (context == null) return;
+        try {
+            context.close();
+        } catch (PolyglotException e) {
+            // a cancelled context rethrows the reason it was cancelled, it is closed either way
+            if (!e.isCancelled() && !e.isResourceExhausted()) throw e;
+        }
+    }
+}
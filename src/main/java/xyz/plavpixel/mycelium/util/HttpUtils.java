@@ -4,6 +4,7 @@ import xyz.plavpixel.mycelium.config.BotConfig;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -73,4 +74,53 @@ public class HttpUtils {
             return "error: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * get asynchronously, the calling thread is not held while the request is in flight
+     */
+    public CompletableFuture<String> getAsync(String url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("User-Agent", "MyceliumBot/2.0.0")
+                .build();
+        return enqueue(request);
+    }
+
+    /**
+     * post json asynchronously
+     */
+    public CompletableFuture<String> postAsync(String url, String jsonBody) {
+        RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json; charset=utf-8"));
+        Request request = new Request.Builder()
+                .url(url)
+                .post(body)
+                .header("User-Agent", "MyceliumBot/2.0.0")
+                .header("Content-Type", "application/json")
+                .build();
+        return enqueue(request);
+    }
+
+    private CompletableFuture<String> enqueue(Request request) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.complete("error: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        future.complete("error: http " + response.code());
+                        return;
+                    }
+                    future.complete(response.body() != null ? response.body().string() : "error: empty response");
+                } catch (IOException e) {
+                    future.complete("error: " + e.getMessage());
+                }
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,172 @@
+package xyz.plavpixel.mycelium.commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandAuditLogTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesOneJsonLinePerCommand() throws IOException {
+        CommandAuditLog log = new CommandAuditLog(directory, 0, 0, false);
+        log.record(123L, 1234567890123456789L, "user:ping", CommandAuditLog.Outcome.OK, 2_500_000L);
+        log.record(0L, 5L, "mod:ban", CommandAuditLog.Outcome.DENIED, 0L);
+        log.shutdown();
+
+        List<String> lines = lines(files().get(0));
+        assertEquals(2, lines.size());
+        JsonNode first = mapper.readTree(lines.get(0));
+        assertEquals("123", first.path("guild").asText());
+        assertEquals("1234567890123456789", first.path("user").asText());
+        assertEquals("user:ping", first.path("command").asText());
+        assertEquals("OK", first.path("outcome").asText());
+        assertEquals(2.5, first.path("latencyMs").asDouble());
+        assertTrue(mapper.readTree(lines.get(1)).path("guild").isNull());
+    }
+
+    @Test
+    void rollsOverBeforeALineWouldPassTheLimit() throws IOException {
+        long maxBytes = 1_000;
+        CommandAuditLog log = new CommandAuditLog(directory, maxBytes, 0, false);
+        for (int i = 0; i < 100; i++) {
+            log.record(1L, 2L, "user:command" + i, CommandAuditLog.Outcome.OK, 0L);
+        }
+        log.shutdown();
+
+        List<Path> files = files();
+        assertTrue(files.size() > 1);
+        assertEquals(fileName(0), files.get(0).getFileName().toString());
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals(fileName(i), files.get(i).getFileName().toString());
+            long size = Files.size(files.get(i));
+            assertTrue(size <= maxBytes, files.get(i) + " has " + size + " bytes");
+            if (i + 1 < files.size()) {
+                // a file is only closed when the next line no longer fits
+                long nextLine = lines(files.get(i + 1)).get(0).getBytes(StandardCharsets.UTF_8).length + 1;
+                assertTrue(size + nextLine > maxBytes, files.get(i) + " closed with room to spare");
+            }
+        }
+        assertCommandsInOrder(files, "user:command", 100);
+    }
+
+    @Test
+    void countsBytesNotCharacters() throws IOException {
+        long maxBytes = 600;
+        CommandAuditLog log = new CommandAuditLog(directory, maxBytes, 0, false);
+        for (int i = 0; i < 40; i++) {
+            log.record(1L, 2L, "user:ünïcödé✓" + i, CommandAuditLog.Outcome.OK, 0L);
+        }
+        log.shutdown();
+
+        for (Path file : files()) {
+            assertTrue(Files.size(file) <= maxBytes, file + " has " + Files.size(file) + " bytes");
+        }
+        assertCommandsInOrder(files(), "user:ünïcödé✓", 40);
+    }
+
+    @Test
+    void lineLargerThanTheLimitGetsAFileOfItsOwn() throws IOException {
+        CommandAuditLog log = new CommandAuditLog(directory, 50, 0, false);
+        log.record(1L, 2L, "user:a", CommandAuditLog.Outcome.OK, 0L);
+        log.record(1L, 2L, "user:b", CommandAuditLog.Outcome.OK, 0L);
+        log.shutdown();
+
+        List<Path> files = files();
+        assertEquals(2, files.size());
+        assertEquals(1, lines(files.get(0)).size());
+        assertEquals(1, lines(files.get(1)).size());
+    }
+
+    @Test
+    void nonPositiveLimitOnlyRollsOverDaily() throws IOException {
+        CommandAuditLog log = new CommandAuditLog(directory, 0, 0, false);
+        for (int i = 0; i < 500; i++) {
+            log.record(1L, 2L, "user:command" + i, CommandAuditLog.Outcome.OK, 0L);
+        }
+        log.shutdown();
+
+        assertEquals(1, files().size());
+        assertCommandsInOrder(files(), "user:command", 500);
+    }
+
+    @Test
+    void restartAppendsToTheNewestFileOfTheDay() throws IOException {
+        Files.writeString(directory.resolve(fileName(0)), "{}\n");
+        Files.writeString(directory.resolve(fileName(1)), "{}\n");
+
+        CommandAuditLog log = new CommandAuditLog(directory, 10_000, 0, false);
+        log.record(1L, 2L, "user:ping", CommandAuditLog.Outcome.OK, 0L);
+        log.shutdown();
+
+        List<Path> files = files();
+        assertEquals(2, files.size());
+        assertEquals(1, lines(files.get(0)).size());
+        assertEquals(2, lines(files.get(1)).size());
+    }
+
+    @Test
+    void deletesFilesPastTheRetention() throws IOException {
+        Path old = Files.writeString(directory.resolve("commands-2000-01-01.ndjson"), "{}\n");
+        Path oldRolled = Files.writeString(directory.resolve("commands-2000-01-01.3.ndjson"), "{}\n");
+        Path recent = Files.writeString(directory.resolve("commands-" + today().minusDays(1) + ".ndjson"), "{}\n");
+        Path other = Files.writeString(directory.resolve("commands-notes.ndjson"), "{}\n");
+
+        CommandAuditLog log = new CommandAuditLog(directory, 0, 7, false);
+        log.record(1L, 2L, "user:ping", CommandAuditLog.Outcome.OK, 0L);
+        log.shutdown();
+
+        assertFalse(Files.exists(old));
+        assertFalse(Files.exists(oldRolled));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(other));
+    }
+
+    private void assertCommandsInOrder(List<Path> files, String command, int count) throws IOException {
+        List<String> commands = new ArrayList<>();
+        for (Path file : files) {
+            for (String line : lines(file)) commands.add(mapper.readTree(line).path("command").asText());
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) expected.add(command + i);
+        assertEquals(expected, commands);
+    }
+
+    /**
+     * today's files in write order
+     */
+    private List<Path> files() {
+        List<Path> files = new ArrayList<>();
+        for (int index = 0; Files.exists(directory.resolve(fileName(index))); index++) {
+            files.add(directory.resolve(fileName(index)));
+        }
+        return files;
+    }
+
+    private static String fileName(int index) {
+        return "commands-" + today() + (index > 0 ? "." + index : "") + ".ndjson";
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
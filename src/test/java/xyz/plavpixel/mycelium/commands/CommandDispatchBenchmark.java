@@ -0,0 +1,76 @@
+package xyz.plavpixel.mycelium.commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * resolving a command name from a message: the old substring, regex split, lower-case and hash map lookup
+ * against the in-place parse and trie walk handleCommand does now.
+ * run with java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main CommandDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    private static final String PREFIX = "!";
+    private static final String[] NAMES = {
+            "ping", "help", "play", "playlist", "pause", "resume", "skip", "stop", "queue", "volume",
+            "nowplaying", "shuffle", "loop", "remove", "clear", "lyrics", "rank", "leaderboard", "profile", "daily",
+            "balance", "pay", "shop", "buy", "inventory", "remind", "poll", "roll", "flip", "avatar",
+            "userinfo", "serverinfo", "weather", "translate", "define", "quote", "meme", "stats", "uptime", "invite"
+    };
+
+    @Param({"!ping", "!PLAY never gonna give you up", "!leaderboard   weekly  top", "!nosuchcommand at all"})
+    public String content;
+
+    private Map<String, String> commands;
+    private CommandTrie<String> trie;
+
+    @Setup
+    public void setup() {
+        commands = new HashMap<>();
+        trie = new CommandTrie<>();
+        for (String name : NAMES) {
+            commands.put(name, name);
+            trie.putIfAbsent(name, name);
+        }
+    }
+
+    @Benchmark
+    public void splitAndHashMap(Blackhole blackhole) {
+        String[] parts = content.substring(PREFIX.length()).split("\\s+", 2);
+        String commandName = parts[0].toLowerCase();
+        String args = parts.length > 1 ? parts[1] : "";
+        blackhole.consume(commands.get(commandName));
+        blackhole.consume(args);
+    }
+
+    @Benchmark
+    public void inPlaceAndTrie(Blackhole blackhole) {
+        int nameStart = PREFIX.length();
+        int nameEnd = nameStart;
+        while (nameEnd < content.length() && !CommandManager.isWhitespace(content.charAt(nameEnd))) nameEnd++;
+        int argsStart = nameEnd;
+        while (argsStart < content.length() && CommandManager.isWhitespace(content.charAt(argsStart))) argsStart++;
+        String args = argsStart < content.length() ? content.substring(argsStart) : "";
+        blackhole.consume(trie.find(content, nameStart, nameEnd));
+        blackhole.consume(args);
+    }
+}
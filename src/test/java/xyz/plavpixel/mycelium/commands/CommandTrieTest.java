@@ -0,0 +1,151 @@
+package xyz.plavpixel.mycelium.commands;
+
+import xyz.plavpixel.mycelium.script.ScriptCommand;
+import xyz.plavpixel.mycelium.script.ScriptEntry;
+import xyz.plavpixel.mycelium.script.ScriptRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandTrieTest {
+
+    @Test
+    void findsNamesIgnoringCase() {
+        CommandTrie<String> trie = new CommandTrie<>();
+        trie.putIfAbsent("ping", "ping");
+        trie.putIfAbsent("Ünïcode", "unicode");
+
+        assertEquals("ping", trie.find("PING"));
+        assertEquals("ping", trie.find("pInG"));
+        assertEquals("unicode", trie.find("üNÏCODE"));
+    }
+
+    @Test
+    void findsSliceOfMessageInPlace() {
+        CommandTrie<String> trie = new CommandTrie<>();
+        trie.putIfAbsent("play", "play");
+        String content = "!play some song";
+
+        assertEquals("play", trie.find(content, 1, 5));
+        assertNull(trie.find(content, 1, 4));
+        assertNull(trie.find(content, 1, 1));
+    }
+
+    @Test
+    void keepsPrefixesOfOtherCommandsApart() {
+        CommandTrie<String> trie = new CommandTrie<>();
+        trie.putIfAbsent("play", "play");
+        trie.putIfAbsent("playlist", "playlist");
+        trie.putIfAbsent("p", "p");
+
+        assertEquals("p", trie.find("p"));
+        assertEquals("play", trie.find("play"));
+        assertEquals("playlist", trie.find("playlist"));
+        assertNull(trie.find("pla"));
+        assertNull(trie.find("playl"));
+        assertNull(trie.find("playlists"));
+    }
+
+    @Test
+    void rejectsUnknownNames() {
+        CommandTrie<String> trie = new CommandTrie<>();
+        trie.putIfAbsent("help", "help");
+
+        assertNull(trie.find("hello"));
+        assertNull(trie.find("xhelp"));
+        assertNull(trie.find(""));
+        assertNull(new CommandTrie<String>().find("help"));
+    }
+
+    @Test
+    void firstValueKeepsTheName() {
+        CommandTrie<String> trie = new CommandTrie<>();
+        assertEquals("first", trie.putIfAbsent("ping", "first"));
+        assertEquals("first", trie.putIfAbsent("PING", "second"));
+        assertEquals("first", trie.find("ping"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void aliasesShareTheCommandsRoute() {
+        ScriptRegistry registry = registry(entry("music", command("user", "queue", "q", "list")));
+        CommandTrie<CommandRoute<String>> trie = CommandManager.buildTrie("user", Map.of(), Map.of(), registry, routes());
+
+        CommandRoute<String> route = trie.find("queue");
+        assertNotNull(route);
+        assertSame(route, trie.find("q"));
+        assertSame(route, trie.find("LIST"));
+        assertEquals("queue", trie.find("q").name());
+        assertTrue(route.isScript());
+    }
+
+    @Test
+    void builtInsWinAndAliasesNeverShadowCommands() {
+        Map<String, String> builtIns = new LinkedHashMap<>();
+        builtIns.put("help", "built-in help");
+        builtIns.put("ping", "built-in ping");
+        ScriptRegistry registry = registry(entry("misc", command("user", "help"), command("user", "stats", "ping")));
+        CommandTrie<CommandRoute<String>> trie = CommandManager.buildTrie("user", builtIns, Map.of("h", "help"), registry, routes());
+
+        assertEquals("built-in help", trie.find("help").builtIn());
+        assertSame(trie.find("help"), trie.find("h"));
+        assertEquals("built-in ping", trie.find("ping").builtIn());
+        assertTrue(trie.find("stats").isScript());
+    }
+
+    @Test
+    void keepsUserAndModCommandsApart() {
+        ScriptRegistry registry = registry(entry("admin", command("mod", "ban"), command("user", "rank")));
+
+        CommandTrie<CommandRoute<String>> user = CommandManager.buildTrie("user", Map.of(), Map.of(), registry, routes());
+        CommandTrie<CommandRoute<String>> mod = CommandManager.buildTrie("mod", Map.of(), Map.of(), registry, routes());
+
+        assertNull(user.find("ban"));
+        assertNotNull(user.find("rank"));
+        assertNotNull(mod.find("ban"));
+        assertNull(mod.find("rank"));
+    }
+
+    @Test
+    void rebuildFollowsTheRegistry() {
+        ScriptRegistry before = registry(entry("a", command("user", "old", "o")), entry("b", command("user", "kept")));
+        ScriptRegistry after = before.with(List.of(entry("c", command("user", "fresh", "f"))), List.of("a"));
+
+        CommandTrie<CommandRoute<String>> first = CommandManager.buildTrie("user", Map.of(), Map.of(), before, routes());
+        CommandTrie<CommandRoute<String>> second = CommandManager.buildTrie("user", Map.of(), Map.of(), after, routes());
+
+        assertNotNull(first.find("old"));
+        assertNotNull(first.find("o"));
+        assertNull(first.find("fresh"));
+
+        assertNull(second.find("old"));
+        assertNull(second.find("o"));
+        assertNotNull(second.find("kept"));
+        assertNotNull(second.find("fresh"));
+        assertSame(second.find("fresh"), second.find("f"));
+    }
+
+    private static BiFunction<String, String, CommandRoute<String>> routes() {
+        int[] ids = {0};
+        return (name, builtIn) -> new CommandRoute<>(name, ids[0]++, builtIn, -1, 0);
+    }
+
+    private static ScriptRegistry registry(ScriptEntry... entries) {
+        Map<String, ScriptEntry> byName = new LinkedHashMap<>();
+        for (ScriptEntry entry : entries) byName.put(entry.name(), entry);
+        return new ScriptRegistry(byName);
+    }
+
+    private static ScriptEntry entry(String name, ScriptCommand... commands) {
+        return new ScriptEntry(name, 0L, 0L, null, List.of(commands), List.of());
+    }
+
+    private static ScriptCommand command(String prefix, String name, String... aliases) {
+        return new ScriptCommand("test", prefix, name, name + "Handler", "", 0L, false, false, List.of(aliases));
+    }
+}
@@ -0,0 +1,164 @@
+package xyz.plavpixel.mycelium.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CooldownStoreTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final CooldownStore store = new CooldownStore(clock::get);
+
+    @Test
+    void cooldownRunsOutWithTheClock() {
+        store.apply(1L, 2, 5_000);
+        assertEquals(5_000, store.remainingMillis(1L, 2));
+        assertTrue(store.isOnCooldown(1L, 2));
+
+        clock.addAndGet(4_999);
+        assertEquals(1, store.remainingMillis(1L, 2));
+        clock.addAndGet(1);
+        assertEquals(0, store.remainingMillis(1L, 2));
+        assertFalse(store.isOnCooldown(1L, 2));
+    }
+
+    @Test
+    void keysAreUserAndCommand() {
+        store.apply(1L, 2, 5_000);
+        assertFalse(store.isOnCooldown(1L, 3));
+        assertFalse(store.isOnCooldown(2L, 2));
+    }
+
+    @Test
+    void nonPositiveDurationDoesNothing() {
+        store.apply(1L, 2, 0);
+        store.apply(1L, 3, -5);
+        assertEquals(0, store.size());
+        assertFalse(store.isOnCooldown(1L, 2));
+    }
+
+    @Test
+    void applyRestartsAndClearEnds() {
+        store.apply(1L, 2, 5_000);
+        clock.addAndGet(3_000);
+        store.apply(1L, 2, 5_000);
+        assertEquals(5_000, store.remainingMillis(1L, 2));
+        assertEquals(1, store.size());
+
+        store.clear(1L, 2);
+        assertFalse(store.isOnCooldown(1L, 2));
+    }
+
+    @Test
+    void expiredEntriesAreReclaimed() {
+        for (long user = 0; user < 1_000; user++) store.apply(user, 1, 2_000);
+        assertEquals(1_000, store.size());
+
+        clock.addAndGet(3_000);
+        touchEveryStripe();
+        assertEquals(0, store.size());
+
+        // pooled entries are reused
+        for (long user = 0; user < 1_000; user++) store.apply(user, 1, 2_000);
+        assertEquals(1_000, store.size());
+        assertTrue(store.isOnCooldown(999L, 1));
+    }
+
+    @Test
+    void restartedEntrySurvivesItsFirstBucket() {
+        store.apply(1L, 2, 2_000);
+        clock.addAndGet(1_500);
+        store.apply(1L, 2, 10_000);
+        // the original bucket is swept here, the entry must move on instead of being reclaimed
+        clock.addAndGet(2_000);
+        assertEquals(8_000, store.remainingMillis(1L, 2));
+        clock.addAndGet(9_000);
+        assertFalse(store.isOnCooldown(1L, 2));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void cooldownLongerThanATurnOfTheWheel() {
+        // 512 one-second buckets, so this one passes its bucket once before it is due
+        store.apply(1L, 2, 1_000_000);
+        for (int step = 0; step < 99; step++) {
+            clock.addAndGet(10_000);
+            assertTrue(store.isOnCooldown(1L, 2), "expired early at step " + step);
+        }
+        assertEquals(1, store.size());
+        clock.addAndGet(12_000);
+        assertFalse(store.isOnCooldown(1L, 2));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void idleGapLongerThanTheWheelSweepsEverything() {
+        store.apply(1L, 2, 5_000);
+        store.apply(1L, 3, 100_000);
+        clock.addAndGet(10_000_000);
+        // each stripe sweeps when one of its keys is next used
+        assertFalse(store.isOnCooldown(1L, 2));
+        assertFalse(store.isOnCooldown(1L, 3));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void collidingKeysStayReachableWhileOthersAreReclaimed() {
+        List<long[]> keys = colliding(6, 32);
+        // alternate short and long cooldowns so reclaiming punches holes through the middle of the chain
+        for (int i = 0; i < keys.size(); i++) {
+            store.apply(keys.get(i)[0], (int) keys.get(i)[1], i % 2 == 0 ? 1_000 : 60_000);
+        }
+        for (long[] key : keys) assertTrue(store.isOnCooldown(key[0], (int) key[1]));
+
+        clock.addAndGet(5_000);
+        store.remainingMillis(keys.get(0)[0], (int) keys.get(0)[1]);
+        assertEquals(keys.size() / 2, store.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 != 0, store.isOnCooldown(keys.get(i)[0], (int) keys.get(i)[1]), "key " + i);
+        }
+
+        // the holes can be filled again without losing anything behind them
+        for (int i = 0; i < keys.size(); i += 2) {
+            store.apply(keys.get(i)[0], (int) keys.get(i)[1], 60_000);
+        }
+        for (long[] key : keys) assertTrue(store.isOnCooldown(key[0], (int) key[1]));
+    }
+
+    @Test
+    void tableGrowsPastItsInitialSize() {
+        List<long[]> keys = colliding(300, 1);
+        for (long[] key : keys) store.apply(key[0], (int) key[1], 60_000);
+        assertEquals(keys.size(), store.size());
+        for (long[] key : keys) assertTrue(store.isOnCooldown(key[0], (int) key[1]));
+    }
+
+    private void touchEveryStripe() {
+        for (long user = 0; user < 1_000; user++) store.remainingMillis(user, 1);
+    }
+
+    /**
+     * (user, command) pairs in the first stripe that share a home slot in a table of the given capacity
+     */
+    private static List<long[]> colliding(int count, int capacity) {
+        List<long[]> keys = new ArrayList<>();
+        for (long user = 1; keys.size() < count; user++) {
+            for (int command = 0; command < 4 && keys.size() < count; command++) {
+                int hash = hash(user, command);
+                if (hash >>> 28 == 0 && (hash & (capacity - 1)) == 0) keys.add(new long[]{user, command});
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * same mix as CooldownStore, the tests need to know where keys land
+     */
+    private static int hash(long userId, int commandId) {
+        long mixed = (userId ^ ((long) commandId << 48 | commandId)) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,161 @@
+package xyz.plavpixel.mycelium.commands;
+
+import xyz.plavpixel.mycelium.config.BotConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000L);
+
+    @Test
+    void userBucketHoldsAMinuteOfTokensAndRefillsSteadily() {
+        RateLimiter limiter = limiter(config(10, 0, 0, 1024));
+        for (int i = 0; i < 10; i++) assertNull(limiter.tryAcquire(1L, 0L), "message " + i);
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 0L));
+
+        // one token every 6 seconds
+        clock.addAndGet(5_999);
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 0L));
+        clock.addAndGet(1);
+        assertNull(limiter.tryAcquire(1L, 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 0L));
+
+        // a long pause fills the bucket, never beyond its size
+        clock.addAndGet(600_000);
+        for (int i = 0; i < 10; i++) assertNull(limiter.tryAcquire(1L, 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 0L));
+        assertEquals(4, limiter.getRejected(RateLimiter.Scope.USER));
+    }
+
+    @Test
+    void usersHaveTheirOwnBuckets() {
+        RateLimiter limiter = limiter(config(2, 0, 0, 1024));
+        assertNull(limiter.tryAcquire(1L, 0L));
+        assertNull(limiter.tryAcquire(1L, 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 0L));
+        assertNull(limiter.tryAcquire(2L, 0L));
+    }
+
+    @Test
+    void zeroLimitTurnsAScopeOff() {
+        RateLimiter limiter = limiter(config(0, 0, 0, 1024));
+        for (int i = 0; i < 1_000; i++) assertNull(limiter.tryAcquire(1L, 5L));
+    }
+
+    @Test
+    void narrowestBucketIsCheckedFirst() {
+        RateLimiter limiter = limiter(config(2, 3, 0, 1024));
+        assertNull(limiter.tryAcquire(1L, 5L));
+        assertNull(limiter.tryAcquire(1L, 5L));
+        // the spammer's own bucket is dry, so the guild's keeps its last token
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 5L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(1L, 5L));
+        assertNull(limiter.tryAcquire(2L, 5L));
+        assertEquals(RateLimiter.Scope.GUILD, limiter.tryAcquire(3L, 5L));
+        // direct messages skip the guild bucket
+        assertNull(limiter.tryAcquire(3L, 0L));
+    }
+
+    @Test
+    void globalBucketIsShared() {
+        RateLimiter limiter = limiter(config(0, 0, 3, 1024));
+        assertNull(limiter.tryAcquire(1L, 0L));
+        assertNull(limiter.tryAcquire(2L, 0L));
+        assertNull(limiter.tryAcquire(3L, 0L));
+        assertEquals(RateLimiter.Scope.GLOBAL, limiter.tryAcquire(4L, 0L));
+        assertEquals(1, limiter.getRejected(RateLimiter.Scope.GLOBAL));
+    }
+
+    @Test
+    void commandBucketsAreSharedByEveryone() {
+        BotConfig config = config(0, 0, 0, 1024);
+        Map<String, Integer> commandLimits = new HashMap<>();
+        commandLimits.put("Roll", 2);
+        config.setCommandRateLimits(commandLimits);
+        RateLimiter limiter = limiter(config);
+
+        assertEquals(30_000, limiter.commandInterval("roll"));
+        assertEquals(0, limiter.commandInterval("ping"));
+        CommandRoute<Object> roll = new CommandRoute<>("roll", 1, null, -1, limiter.commandInterval("roll"));
+        CommandRoute<Object> ping = new CommandRoute<>("ping", 2, null, -1, limiter.commandInterval("ping"));
+
+        assertNull(limiter.tryAcquireCommand(roll));
+        assertNull(limiter.tryAcquireCommand(roll));
+        assertEquals(RateLimiter.Scope.COMMAND, limiter.tryAcquireCommand(roll));
+        for (int i = 0; i < 100; i++) assertNull(limiter.tryAcquireCommand(ping));
+        clock.addAndGet(30_000);
+        assertNull(limiter.tryAcquireCommand(roll));
+    }
+
+    @Test
+    void keysWithTheSameFingerprintShareABucket() {
+        // a table of 4 is probed whole, so two keys whose 24 bit fingerprints match can't be told apart.
+        // the collision limits both keys together, it never lets either of them through unlimited
+        long[] pair = fingerprintCollision();
+        RateLimiter limiter = limiter(config(4, 0, 0, 4));
+        assertNull(limiter.tryAcquire(pair[0], 0L));
+        assertNull(limiter.tryAcquire(pair[0], 0L));
+        assertNull(limiter.tryAcquire(pair[1], 0L));
+        assertNull(limiter.tryAcquire(pair[1], 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(pair[0], 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(pair[1], 0L));
+    }
+
+    @Test
+    void differentFingerprintsInTheSameWindowGetTheirOwnBuckets() {
+        RateLimiter limiter = limiter(config(1, 0, 0, 4));
+        for (long user = 1; user <= 4; user++) {
+            assertNull(limiter.tryAcquire(user, 0L));
+            assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(user, 0L), "user " + user);
+        }
+    }
+
+    @Test
+    void keyGoesUnlimitedWhileEveryProbedSlotIsBusy() {
+        RateLimiter limiter = limiter(config(1, 0, 0, 4));
+        for (long user = 1; user <= 4; user++) assertNull(limiter.tryAcquire(user, 0L));
+        for (int i = 0; i < 10; i++) assertNull(limiter.tryAcquire(5L, 0L));
+
+        // once a bucket is full again its slot can be taken over, and the newcomer is limited
+        clock.addAndGet(60_000);
+        assertNull(limiter.tryAcquire(5L, 0L));
+        assertEquals(RateLimiter.Scope.USER, limiter.tryAcquire(5L, 0L));
+    }
+
+    private RateLimiter limiter(BotConfig config) {
+        return new RateLimiter(config, clock::get);
+    }
+
+    private static BotConfig config(int perUser, int perGuild, int global, int tableSize) {
+        BotConfig config = new BotConfig();
+        config.setEnablePerUserRateLimit(perUser > 0);
+        config.setPerUserRateLimitPerMinute(perUser);
+        config.setGuildRateLimitPerMinute(perGuild);
+        config.setGlobalRateLimitPerMinute(global);
+        config.setRateLimitTableSize(tableSize);
+        config.setCommandRateLimits(new HashMap<>());
+        return config;
+    }
+
+    /**
+     * two user ids with the same bucket fingerprint, found the way RateLimiter derives it
+     */
+    private static long[] fingerprintCollision() {
+        // random ids, consecutive ones spread their fingerprints too evenly to collide quickly
+        Random random = new Random(42);
+        Map<Long, Long> seen = new HashMap<>();
+        while (true) {
+            long key = random.nextLong();
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            long fingerprint = ((mixed >>> 40) & 0xFFFFFFL) | 1L;
+            Long other = seen.putIfAbsent(fingerprint, key);
+            if (other != null) return new long[]{other, key};
+        }
+    }
+}
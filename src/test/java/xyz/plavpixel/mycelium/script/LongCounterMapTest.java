@@ -0,0 +1,159 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongCounterMapTest {
+
+    @Test
+    void missingKeysReadAsDefault() {
+        LongCounterMap map = new LongCounterMap("test");
+        assertEquals(0L, map.get(42L));
+        assertEquals(-1L, map.getOrDefault(42L, -1L));
+        assertFalse(map.has(42L));
+        assertFalse(map.remove(42L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void addCountsFromZeroAndReturnsTheNewValue() {
+        LongCounterMap map = new LongCounterMap("test");
+        assertEquals(1L, map.increment(7L));
+        assertEquals(6L, map.add(7L, 5L));
+        assertEquals(-4L, map.add(8L, -4L));
+        assertEquals(6L, map.get(7L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void stringKeysHoldFullDiscordIds() {
+        LongCounterMap map = new LongCounterMap("test");
+        map.put("1234567890123456789", 3L);
+        map.increment("1234567890123456789");
+        assertEquals(4L, map.get(1234567890123456789L));
+        assertEquals(4L, map.get("1234567890123456789"));
+        assertTrue(map.remove("1234567890123456789"));
+        assertFalse(map.has(1234567890123456789L));
+    }
+
+    @Test
+    void collidingKeysShareAProbeChain() {
+        LongCounterMap map = new LongCounterMap("test");
+        long[] keys = colliding(5, 16);
+        for (int i = 0; i < keys.length; i++) map.put(keys[i], i);
+        for (int i = 0; i < keys.length; i++) assertEquals(i, map.get(keys[i]));
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    void removeShiftsTheRestOfTheChainBack() {
+        // removing from the head, the middle and the tail of one chain must leave every other key reachable
+        for (int removed = 0; removed < 5; removed++) {
+            LongCounterMap map = new LongCounterMap("test");
+            long[] keys = colliding(5, 16);
+            for (int i = 0; i < keys.length; i++) map.put(keys[i], i);
+
+            assertTrue(map.remove(keys[removed]));
+            assertFalse(map.has(keys[removed]));
+            for (int i = 0; i < keys.length; i++) {
+                if (i != removed) assertEquals(i, map.get(keys[i]), "key " + i + " after removing " + removed);
+            }
+            assertEquals(keys.length - 1, map.size());
+
+            // the freed slot is usable again
+            map.put(keys[removed], 100L);
+            assertEquals(100L, map.get(keys[removed]));
+        }
+    }
+
+    @Test
+    void removeKeepsChainsThatWrapAroundTheTable() {
+        LongCounterMap map = new LongCounterMap("test");
+        long[] tail = keysInSlot(3, 15, 16);
+        long[] head = keysInSlot(2, 0, 16);
+        // slot 15 overflows into 0 and 1, which pushes the keys homed at 0 further along
+        for (long key : tail) map.put(key, key);
+        for (long key : head) map.put(key, key);
+
+        assertTrue(map.remove(tail[0]));
+        for (int i = 1; i < tail.length; i++) assertEquals(tail[i], map.get(tail[i]));
+        for (long key : head) assertEquals(key, map.get(key));
+        assertTrue(map.remove(head[0]));
+        assertEquals(head[1], map.get(head[1]));
+        assertEquals(tail.length + head.length - 2, map.size());
+    }
+
+    @Test
+    void resizeKeepsEveryEntry() {
+        LongCounterMap map = new LongCounterMap("test");
+        // enough keys in one stripe to grow it several times past its initial 16 slots
+        long[] keys = colliding(200, 1);
+        for (int i = 0; i < keys.length; i++) map.put(keys[i], i * 10L);
+        for (int i = 0; i < keys.length; i++) assertEquals(i * 10L, map.get(keys[i]));
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomOperations() {
+        LongCounterMap map = new LongCounterMap("test");
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(12345);
+        // a small key space keeps chains long and makes removes hit existing keys often
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) * 0x1_0000_0000L;
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    map.put(key, i);
+                    expected.put(key, (long) i);
+                }
+                case 1 -> assertEquals(expected.merge(key, 3L, Long::sum), map.add(key, 3L));
+                case 2 -> assertEquals(expected.remove(key) != null, map.remove(key));
+                default -> assertEquals(expected.getOrDefault(key, 0L), map.get(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void clearEmptiesEveryStripe() {
+        LongCounterMap map = new LongCounterMap("test");
+        for (long key = 0; key < 1_000; key++) map.put(key, key);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.has(500L));
+        map.put(500L, 1L);
+        assertEquals(1L, map.get(500L));
+    }
+
+    /**
+     * count keys that land in the same stripe and the same home slot of a table of the given capacity
+     */
+    private static long[] colliding(int count, int capacity) {
+        return keysInSlot(count, 0, capacity);
+    }
+
+    private static long[] keysInSlot(int count, int slot, int capacity) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            int hash = hash(key);
+            if (hash >>> 28 == 0 && (hash & (capacity - 1)) == slot) keys.add(key);
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * same mix as LongCounterMap, the tests need to know where keys land
+     */
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
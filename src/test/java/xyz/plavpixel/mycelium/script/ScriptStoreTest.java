@@ -0,0 +1,63 @@
+package xyz.plavpixel.mycelium.script;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptStoreTest {
+
+    @Test
+    void sameNameSharesOneInstance() {
+        ScriptStore store = new ScriptStore();
+        assertSame(store.longMap("seen"), store.longMap("seen"));
+        assertSame(store.counter("messages"), store.counter("messages"));
+        assertSame(store.cache("users"), store.cache("users", 60, 5));
+        assertNotSame(store.longMap("seen"), store.longMap("other"));
+        assertEquals("seen", store.longMap("seen").getName());
+    }
+
+    @Test
+    void listsWhatWasCreated() {
+        ScriptStore store = new ScriptStore();
+        store.longMap("a");
+        store.longMap("b");
+        store.counter("c").addAndGet(5);
+        store.cache("d");
+
+        assertEquals(2, store.getLongMaps().size());
+        assertEquals(1, store.getCaches().size());
+        assertEquals(5L, store.getCounters().get("c").get());
+    }
+
+    @Test
+    void countersAndMapsAreSafeAcrossWorkers() throws InterruptedException {
+        ScriptStore store = new ScriptStore();
+        int threads = 8;
+        int perThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        store.counter("total").incrementAndGet();
+                        store.longMap("perUser").increment(i % 100);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals((long) threads * perThread, store.counter("total").get());
+        LongCounterMap perUser = store.longMap("perUser");
+        assertEquals(100, perUser.size());
+        for (long user = 0; user < 100; user++) {
+            assertEquals((long) threads * perThread / 100, perUser.get(user));
+        }
+    }
+}